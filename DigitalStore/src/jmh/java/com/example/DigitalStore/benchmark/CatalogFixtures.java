@@ -0,0 +1,76 @@
+package com.example.DigitalStore.benchmark;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic catalog data shared by the benchmarks. Values are deterministic so runs are comparable.
+ */
+final class CatalogFixtures {
+
+    static final int SIZE_COUNT = 8;
+    static final int COLOR_COUNT = 12;
+
+    private CatalogFixtures() {
+    }
+
+    static Sizes size(long id) {
+        Sizes size = new Sizes();
+        size.setId(id);
+        size.setSize("Size " + id);
+        return size;
+    }
+
+    static Colors color(long id) {
+        Colors color = new Colors();
+        color.setId(id);
+        color.setColor("Color " + id);
+        return color;
+    }
+
+    static Products product(long id, int optionCount) {
+        Products product = new Products();
+        product.setId(id);
+        product.setProductCode("P" + id);
+        product.setProductName("Running shoe " + id);
+        product.setDescription("Lightweight running shoe with breathable mesh upper, model " + id);
+        product.setPrice(49.9 + id % 100);
+        for (int i = 0; i < optionCount; i++) {
+            ProductOptions option = new ProductOptions();
+            option.setId(id * 1000 + i);
+            option.setProductId(product);
+            option.setSize(size(1 + i % SIZE_COUNT));
+            option.setColor(color(1 + i % COLOR_COUNT));
+            option.setStockQuantity(i % 7);
+            product.getProductOptions().add(option);
+        }
+        return product;
+    }
+
+    static List<Products> products(int count) {
+        List<Products> products = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            products.add(product(id, 0));
+        }
+        return products;
+    }
+
+    static List<ProductsDTO> productDTOs(int count) {
+        return products(count).stream()
+                .map(product -> new ProductsDTO(product.getId(), product.getProductCode(), product.getProductName(),
+                        product.getDescription(), product.getPrice()))
+                .toList();
+    }
+
+    static List<ProductOptionsGetDTO> optionDTOs(int count) {
+        List<ProductOptionsGetDTO> options = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            options.add(new ProductOptionsGetDTO(id, "Size " + (1 + id % SIZE_COUNT), "Color " + (1 + id % COLOR_COUNT), (int) (id % 7)));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.DigitalStore.benchmark;
+
+import com.example.DigitalStore.DTO.ProductOptionsDTO;
+import com.example.DigitalStore.DTO.ProductsUpdateDTO;
+import com.example.DigitalStore.Service.CatalogVersion;
+import com.example.DigitalStore.Service.ProductService;
+import com.example.DigitalStore.Service.ReferenceDataRegistry;
+import com.example.DigitalStore.model.Products;
+import com.example.DigitalStore.repository.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * The option merge of ProductService.updateProduct: half of the request updates existing options, half adds new ones.
+ * The added options are removed again after every call, so each call merges into the same product.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductOptionsMergeBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int existingOptions;
+
+    private ProductService productService;
+    private Products product;
+    private ProductsUpdateDTO update;
+
+    @Setup
+    public void setUp() {
+        product = CatalogFixtures.product(1L, existingOptions);
+
+        ProductsRepository productsRepository = RepositoryStubs.stub(ProductsRepository.class, Map.of(
+                "findById", args -> Optional.of(product),
+                "save", args -> args[0]));
+        // The real registry, loaded once, so size and color lookups cost what they cost in the application
+        ReferenceDataRegistry referenceData = new ReferenceDataRegistry(
+                RepositoryStubs.stub(SizesRepository.class, Map.of("findAll", args ->
+                        LongStream.rangeClosed(1, CatalogFixtures.SIZE_COUNT).mapToObj(CatalogFixtures::size).toList())),
+                RepositoryStubs.stub(ColorsRepository.class, Map.of("findAll", args ->
+                        LongStream.rangeClosed(1, CatalogFixtures.COLOR_COUNT).mapToObj(CatalogFixtures::color).toList())),
+                RepositoryStubs.stub(BrandsRepository.class, Map.of("findAll", args -> List.of())),
+                RepositoryStubs.stub(CategoriesRepository.class, Map.of("findAll", args -> List.of())),
+                new CatalogVersion(RepositoryStubs.stub(CatalogVersionsRepository.class, Map.of())));
+        referenceData.refresh();
+        productService = new ProductService(productsRepository, referenceData, event -> {});
+
+        List<ProductOptionsDTO> options = new ArrayList<>();
+        for (int i = 0; i < existingOptions; i++) {
+            ProductOptionsDTO option = new ProductOptionsDTO();
+            if (i % 2 == 0) {
+                option.setId(product.getProductOptions().get(i).getId());
+                option.setStockQuantity(i);
+            } else {
+                option.setSizeId(1L + i % CatalogFixtures.SIZE_COUNT);
+                option.setColorId(1L + i % CatalogFixtures.COLOR_COUNT);
+                option.setStockQuantity(i);
+            }
+            options.add(option);
+        }
+        update = new ProductsUpdateDTO();
+        update.setProductOptions(options);
+    }
+
+    @Benchmark
+    public Products updateProductOptions() {
+        Products updated = productService.updateProduct(1L, update);
+        product.getProductOptions().subList(existingOptions, product.getProductOptions().size()).clear();
+        return updated;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.DigitalStore.benchmark;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the product listing and product detail responses.
+ * indentOutput shows the cost of spring.jackson.serialization.indent-output.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean indentOutput;
+
+    private ObjectWriter writer;
+    private List<ProductsDTO> products;
+    private List<ProductOptionsGetDTO> options;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().configure(SerializationFeature.INDENT_OUTPUT, indentOutput).writer();
+        products = CatalogFixtures.productDTOs(size);
+        options = CatalogFixtures.optionDTOs(size);
+    }
+
+    @Benchmark
+    public byte[] serializeProducts() throws Exception {
+        return writer.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] serializeProductOptions() throws Exception {
+        return writer.writeValueAsBytes(options);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.DigitalStore.benchmark;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.Service.ProductService;
+import com.example.DigitalStore.model.Products;
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping in ProductService, with the repository stubbed so only the mapping is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductServiceMappingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private ProductService productService;
+
+    @Setup
+    public void setUp() {
+        List<Products> products = CatalogFixtures.products(size);
+        List<ProductOptionsGetDTO> options = CatalogFixtures.optionDTOs(size);
+        ProductsRepository productsRepository = RepositoryStubs.stub(ProductsRepository.class, Map.of(
+                "findAll", args -> products,
+                "findOptionsByProductCode", args -> options));
+        productService = new ProductService(productsRepository, null, event -> {});
+    }
+
+    @Benchmark
+    public List<ProductsDTO> getAllProducts() {
+        return productService.getAllProducts();
+    }
+
+    @Benchmark
+    public List<ProductOptionsGetDTO> getProductOptions() {
+        return productService.getProductOptions("P1");
+    }
+}
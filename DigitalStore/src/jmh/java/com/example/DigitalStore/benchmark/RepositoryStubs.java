@@ -0,0 +1,35 @@
+package com.example.DigitalStore.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Minimal repository stubs for the benchmarks. A mocking library would add microseconds per call
+ * and hide the code being measured, a JDK proxy costs next to nothing.
+ */
+final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    /**
+     * @param type    The repository interface.
+     * @param methods The implemented methods by name, taking the call arguments. Other methods throw.
+     */
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> implementation = methods.get(method.getName());
+            if (implementation != null) {
+                return implementation.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + " stub";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        });
+        return type.cast(stub);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.DigitalStore.loadtest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds a synthetic catalog with plain JDBC batches.
+ * Runners finish before ApplicationReadyEvent, so the in-memory reference data and indexes are built from the seeded data.
+ * Product ids are 1..products and option ids are (productId - 1) * optionsPerProduct + 1.., the load test relies on this.
+ */
+public class CatalogSeeder implements ApplicationRunner {
+
+    static final int BRANDS = 50;
+    static final int CATEGORIES = 40;
+    static final int SIZES = 10;
+    static final int COLORS = 20;
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int products;
+    private final int optionsPerProduct;
+    private final boolean seed;
+
+    public CatalogSeeder(JdbcTemplate jdbcTemplate,
+                         @Value("${loadtest.products}") int products,
+                         @Value("${loadtest.options-per-product}") int optionsPerProduct,
+                         @Value("${loadtest.seed}") boolean seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.products = products;
+        this.optionsPerProduct = optionsPerProduct;
+        this.seed = seed;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!seed) {
+            return;
+        }
+        long start = System.nanoTime();
+        Random random = new Random(42); // the same catalog on every run
+
+        batch("INSERT INTO Brands (id, brand_name) VALUES (?, ?)", BRANDS, i -> new Object[]{i, "Brand " + i});
+        batch("INSERT INTO Sizes (id, size) VALUES (?, ?)", SIZES, i -> new Object[]{i, "Size " + i});
+        batch("INSERT INTO Colors (id, color) VALUES (?, ?)", COLORS, i -> new Object[]{i, "Color " + i});
+        // 10 main categories with 3 subcategories each
+        batch("INSERT INTO Categories (id, category_name, parent_id) VALUES (?, ?, ?)", CATEGORIES,
+                i -> new Object[]{i, "Category " + i, i <= 10 ? null : (i - 11) / 3 + 1});
+
+        batch("INSERT INTO Products (id, product_code, product_name, description, price, brand_id, category_id) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                products, i -> new Object[]{i, LoadTest.productCode(i), "Product " + i + " " + WORDS[random.nextInt(WORDS.length)],
+                        "Synthetic product " + i + " made of " + WORDS[random.nextInt(WORDS.length)],
+                        Math.round((5 + random.nextDouble() * 495) * 100) / 100.0,
+                        1 + random.nextInt(BRANDS), 1 + random.nextInt(CATEGORIES)});
+        batch("INSERT INTO Product_Options (id, product_id, size_id, color_id, stock_quantity, version) VALUES (?, ?, ?, ?, ?, 0)",
+                (long) products * optionsPerProduct, i -> new Object[]{i, (i - 1) / optionsPerProduct + 1,
+                        1 + (i - 1) % SIZES, 1 + ((i - 1) / SIZES) % COLORS, random.nextInt(50)});
+
+        // The load test creates products and options through JPA, its ids must start after the seeded ones
+        jdbcTemplate.execute("ALTER SEQUENCE products_seq RESTART WITH " + (products + 100));
+        jdbcTemplate.execute("ALTER SEQUENCE product_options_seq RESTART WITH " + ((long) products * optionsPerProduct + 100));
+
+        System.out.printf("Seeded %d products with %d options each in %d s%n",
+                products, optionsPerProduct, (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    private void batch(String sql, long rows, RowFactory factory) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long i = 1; i <= rows; i++) {
+            batch.add(factory.row(i));
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    private interface RowFactory {
+        Object[] row(long i);
+    }
+
+    static final String[] WORDS = {"cotton", "wool", "leather", "mesh", "fleece", "nylon", "running", "trail", "winter", "training"};
+}
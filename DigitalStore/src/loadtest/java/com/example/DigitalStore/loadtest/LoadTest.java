@@ -0,0 +1,330 @@
+package com.example.DigitalStore.loadtest;
+
+import com.example.DigitalStore.Application;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end load test: starts the application with the loadtest profile, seeds a synthetic catalog
+ * and drives the REST endpoints over HTTP with a weighted mix of requests.
+ * Reports throughput, errors and p50/p99/p999 latency per endpoint, on the console and as JSON.
+ * <p>
+ * Run with {@code ./mvnw -Ploadtest -DskipTests verify -Dloadtest.args="--loadtest.products=1000000"};
+ * any application or loadtest.* property can be passed this way, see application-loadtest.properties.
+ */
+public class LoadTest {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final List<String> CATALOG_PATHS = List.of("/products?limit=100", "/brands", "/sizes", "/colors", "/categories");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String baseUrl;
+    private final int products;
+    private final int optionsPerProduct;
+    private final List<Operation> mix;
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private final AtomicLong createdProducts = new AtomicLong();
+    // Last ETag per URI, shared by the clients like a CDN would
+    private final Map<String, String> eTags = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    LoadTest(String baseUrl, int products, int optionsPerProduct, String profile) {
+        this.baseUrl = baseUrl;
+        this.products = products;
+        this.optionsPerProduct = optionsPerProduct;
+        this.mix = mix(profile);
+        mix.forEach(operation -> stats.put(operation.name(), new Stats()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class, CatalogSeeder.class)
+                .profiles("loadtest")
+                .run(args);
+        int exitCode = 0;
+        try {
+            Environment env = context.getEnvironment();
+            LoadTest loadTest = new LoadTest(
+                    "http://localhost:" + env.getRequiredProperty("local.server.port"),
+                    env.getRequiredProperty("loadtest.products", Integer.class),
+                    env.getRequiredProperty("loadtest.options-per-product", Integer.class),
+                    env.getRequiredProperty("loadtest.profile"));
+            Duration warmup = env.getRequiredProperty("loadtest.warmup", Duration.class);
+            Duration duration = env.getRequiredProperty("loadtest.duration", Duration.class);
+            int clients = env.getRequiredProperty("loadtest.clients", Integer.class);
+
+            System.out.printf("Profile %s, %d clients, warmup %s, measuring %s%n", env.getProperty("loadtest.profile"), clients, warmup, duration);
+            loadTest.run(clients, warmup, duration);
+            loadTest.report(duration, new File(env.getRequiredProperty("loadtest.report")));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    void run(int clients, Duration warmup, Duration duration) throws InterruptedException {
+        long end = System.nanoTime() + warmup.toNanos() + duration.toNanos();
+        try (ExecutorService executor = Executors.newFixedThreadPool(clients)) {
+            for (int i = 0; i < clients; i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        execute(pick());
+                    }
+                });
+            }
+            Thread.sleep(warmup.toMillis());
+            recording = true;
+            executor.shutdown();
+            executor.awaitTermination(duration.toMillis() + MAX_LATENCY_NANOS / 1_000_000, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void execute(Operation operation) {
+        HttpRequest request = operation.request().get();
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            ok = response.statusCode() < 400;
+            response.headers().firstValue("ETag").ifPresent(eTag -> eTags.put(request.uri().toString(), eTag));
+        } catch (Exception e) {
+            ok = false;
+        }
+        long latency = System.nanoTime() - start;
+        if (recording) {
+            stats.get(operation.name()).record(latency, ok);
+        }
+    }
+
+    private Operation pick() {
+        int total = mix.stream().mapToInt(Operation::weight).sum();
+        int choice = ThreadLocalRandom.current().nextInt(total);
+        for (Operation operation : mix) {
+            choice -= operation.weight();
+            if (choice < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private List<Operation> mix(String profile) {
+        // The same reads over the blocking endpoints and over /reactive, run both with many clients to compare
+        if (profile.equals("blocking-reads")) {
+            return List.of(
+                    new Operation("GET /products?limit=100", 20, this::listingPage),
+                    new Operation("GET /products/{code}", 60, this::productDetail),
+                    new Operation("GET /products/filter-by-price", 20, this::priceFilter));
+        }
+        // Only the price filter, with ranges of about 20 products whatever the catalog size,
+        // run with different catalog sizes to see how its latency grows
+        if (profile.equals("price-filter")) {
+            return List.of(new Operation("GET /products/filter-by-price", 1, this::narrowPriceFilter));
+        }
+        // Clients polling the unchanged catalog, without and with the ETag of their last response
+        if (profile.equals("catalog-polling") || profile.equals("conditional-catalog-polling")) {
+            boolean conditional = profile.startsWith("conditional");
+            return CATALOG_PATHS.stream()
+                    .map(path -> new Operation("GET " + path, 1, () -> poll(path, conditional)))
+                    .toList();
+        }
+        // Product creation with many options, run with different hibernate.jdbc.batch_size values to compare
+        if (profile.equals("create-many-options")) {
+            return List.of(new Operation("POST /products (40 options)", 1, () -> createProduct(40)));
+        }
+        // Full-text search with two words, the last one typed half way, and autocomplete of the word being typed
+        if (profile.equals("search")) {
+            return List.of(
+                    new Operation("GET /products/search", 3, this::search),
+                    new Operation("GET /products/search/autocomplete", 1, this::autocomplete));
+        }
+        if (profile.equals("reactive-reads")) {
+            return List.of(
+                    new Operation("GET /reactive/products?limit=100", 20, this::reactiveListingPage),
+                    new Operation("GET /reactive/products/{code}", 60, this::reactiveProductDetail),
+                    new Operation("GET /reactive/products/filter-by-price", 20, this::reactivePriceFilter));
+        }
+        int[] weights = switch (profile) {
+            // listing page, product detail, price filter, update, create
+            case "read-heavy" -> new int[]{20, 60, 18, 1, 1};
+            case "mixed" -> new int[]{20, 45, 15, 15, 5};
+            case "write-heavy" -> new int[]{10, 20, 10, 45, 15};
+            default -> throw new IllegalArgumentException("Unknown load profile: " + profile);
+        };
+        return List.of(
+                new Operation("GET /products?limit=100", weights[0], this::listingPage),
+                new Operation("GET /products/{code}", weights[1], this::productDetail),
+                new Operation("GET /products/filter-by-price", weights[2], this::priceFilter),
+                new Operation("PUT /products/{id}", weights[3], this::updateProduct),
+                new Operation("POST /products", weights[4], () -> createProduct(2)));
+    }
+
+    private HttpRequest listingPage() {
+        // A cursor is the base64url encoded id the page starts after
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(randomProductId() - 1).getBytes(StandardCharsets.UTF_8));
+        return get("/products?limit=100&cursor=" + cursor);
+    }
+
+    private HttpRequest productDetail() {
+        return get("/products/" + productCode(randomProductId()));
+    }
+
+    private HttpRequest priceFilter() {
+        double min = ThreadLocalRandom.current().nextInt(5, 495);
+        return get("/products/filter-by-price?" + param("Min Price", min) + "&" + param("Max Price", min + 1));
+    }
+
+    private HttpRequest narrowPriceFilter() {
+        // Seeded prices are spread evenly over 5..500
+        double width = 495.0 * 20 / products;
+        double min = 5 + ThreadLocalRandom.current().nextDouble(495 - width);
+        return get("/products/filter-by-price?" + param("Min Price", min) + "&" + param("Max Price", min + width));
+    }
+
+    private HttpRequest search() {
+        // Seeded words are each in about a fifth of the products, so both words match many products
+        String typed = randomWord();
+        String query = randomWord() + " " + typed.substring(0, Math.min(typed.length(), 3 + ThreadLocalRandom.current().nextInt(3)));
+        return get("/products/search?limit=20&q=" + URLEncoder.encode(query, StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest autocomplete() {
+        return get("/products/search/autocomplete?prefix=" + randomWord().substring(0, 2 + ThreadLocalRandom.current().nextInt(2)));
+    }
+
+    private static String randomWord() {
+        return CatalogSeeder.WORDS[ThreadLocalRandom.current().nextInt(CatalogSeeder.WORDS.length)];
+    }
+
+    private HttpRequest reactiveListingPage() {
+        return get("/reactive/products?limit=100&afterId=" + (randomProductId() - 1));
+    }
+
+    private HttpRequest reactiveProductDetail() {
+        return get("/reactive/products/" + productCode(randomProductId()));
+    }
+
+    private HttpRequest reactivePriceFilter() {
+        double min = ThreadLocalRandom.current().nextInt(5, 495);
+        return get("/reactive/products/filter-by-price?" + param("Min Price", min) + "&" + param("Max Price", min + 1));
+    }
+
+    private HttpRequest updateProduct() {
+        long productId = randomProductId();
+        long optionId = (productId - 1) * optionsPerProduct + 1 + ThreadLocalRandom.current().nextInt(optionsPerProduct);
+        String body = String.format(Locale.ROOT, """
+                {"price": %.2f, "productOptions": [{"id": %d, "stockQuantity": %d}]}""", 5 + ThreadLocalRandom.current().nextDouble(495), optionId, ThreadLocalRandom.current().nextInt(50));
+        return json("/products/" + productId).PUT(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest poll(String path, boolean conditional) {
+        URI uri = URI.create(baseUrl + path);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+        String eTag = eTags.get(uri.toString());
+        if (conditional && eTag != null) {
+            request.header("If-None-Match", eTag);
+        }
+        return request.build();
+    }
+
+    private HttpRequest createProduct(int options) {
+        // Every option has its own size and color combination
+        StringJoiner productOptions = new StringJoiner(", ");
+        for (int i = 0; i < options; i++) {
+            productOptions.add("{\"sizeId\": %d, \"colorId\": %d, \"stockQuantity\": 5}".formatted(1 + i % CatalogSeeder.SIZES, 1 + i / CatalogSeeder.SIZES));
+        }
+        String body = """
+                {"productCode": "LT-%d-%d", "productName": "Load test product", "description": "Created by the load test",
+                 "price": 19.99, "categoryId": %d, "brandId": %d, "productOptions": [%s]}"""
+                .formatted(ProcessHandle.current().pid(), createdProducts.incrementAndGet(),
+                        1 + ThreadLocalRandom.current().nextInt(CatalogSeeder.CATEGORIES), 1 + ThreadLocalRandom.current().nextInt(CatalogSeeder.BRANDS),
+                        productOptions);
+        return json("/products").POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest.Builder json(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Content-Type", "application/json");
+    }
+
+    private static String param(String name, double value) {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8) + "=" + value;
+    }
+
+    private long randomProductId() {
+        return 1 + ThreadLocalRandom.current().nextInt(products);
+    }
+
+    static String productCode(long productId) {
+        return "LT" + productId;
+    }
+
+    void report(Duration duration, File reportFile) throws Exception {
+        double seconds = duration.toMillis() / 1000.0;
+        Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+        System.out.printf("%n%-40s %10s %10s %8s %10s %10s %10s %10s%n", "Endpoint", "Requests", "Req/s", "Errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        stats.forEach((name, endpointStats) -> {
+            Histogram histogram = endpointStats.latencies;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", histogram.getTotalCount());
+            row.put("throughput", histogram.getTotalCount() / seconds);
+            row.put("errors", endpointStats.errors.get());
+            row.put("p50Millis", millis(histogram.getValueAtPercentile(50)));
+            row.put("p99Millis", millis(histogram.getValueAtPercentile(99)));
+            row.put("p999Millis", millis(histogram.getValueAtPercentile(99.9)));
+            row.put("maxMillis", millis(histogram.getMaxValue()));
+            report.put(name, row);
+            System.out.printf("%-40s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(), row.get("throughput"),
+                    endpointStats.errors.get(), row.get("p50Millis"), row.get("p99Millis"), row.get("p999Millis"), row.get("maxMillis"));
+        });
+        reportFile.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        System.out.println("Report written to " + reportFile.getAbsolutePath());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private record Operation(String name, int weight, Supplier<HttpRequest> request) {}
+
+    private static class Stats {
+        private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long latencyNanos, boolean ok) {
+            latencies.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+}
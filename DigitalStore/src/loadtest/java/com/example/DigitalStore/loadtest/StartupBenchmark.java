@@ -0,0 +1,125 @@
+package com.example.DigitalStore.loadtest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup benchmark: launches the application as a new process several times per configuration and measures
+ * the time from launching the process to the first successful response of a URL, the moment a new instance
+ * can serve traffic. Configurations are measured in turns, so they see the same machine and database state.
+ * <p>
+ * Build with {@code ./mvnw -Pfast-startup -DskipTests package} first, then run with
+ * {@code ./mvnw -Ploadtest -DskipTests verify -Dloadtest.main=com.example.DigitalStore.loadtest.StartupBenchmark}.
+ * The configurations are the commands in startup-benchmark.properties; {@code -Dloadtest.args="--config=<file>"}
+ * reads another file, and {@code --runs=<n>} or {@code --url=<url>} override single settings.
+ */
+public class StartupBenchmark {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private final URI url;
+    private final Duration timeout;
+
+    StartupBenchmark(URI url, Duration timeout) {
+        this.url = url;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties settings = new Properties();
+        try (InputStream defaults = StartupBenchmark.class.getResourceAsStream("/startup-benchmark.properties")) {
+            settings.load(defaults);
+        }
+        for (String arg : args) {
+            String[] keyAndValue = arg.replaceFirst("^--", "").split("=", 2);
+            if (keyAndValue[0].equals("config")) {
+                try (InputStream config = new FileInputStream(keyAndValue[1])) {
+                    settings.clear();
+                    settings.load(config);
+                }
+            } else {
+                settings.setProperty("startup." + keyAndValue[0], keyAndValue[1]);
+            }
+        }
+
+        StartupBenchmark benchmark = new StartupBenchmark(URI.create(settings.getProperty("startup.url")),
+                Duration.parse(settings.getProperty("startup.timeout")));
+        int runs = Integer.parseInt(settings.getProperty("startup.runs"));
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        for (String name : settings.getProperty("startup.configurations").split(",")) {
+            results.put(name.trim(), new ArrayList<>());
+        }
+        for (int run = 1; run <= runs; run++) {
+            for (Map.Entry<String, List<Long>> configuration : results.entrySet()) {
+                String command = settings.getProperty("startup.command." + configuration.getKey());
+                if (command == null) {
+                    throw new IllegalArgumentException("No startup.command." + configuration.getKey() + " configured.");
+                }
+                List<String> commandLine = new ArrayList<>(List.of(command.trim().split("\\s+")));
+                if (commandLine.get(0).equals("java")) {
+                    commandLine.set(0, Path.of(System.getProperty("java.home"), "bin", "java").toString()); // the JDK running the benchmark
+                }
+                long millis = benchmark.measure(commandLine);
+                configuration.getValue().add(millis);
+                System.out.printf("Run %d, %s: first successful request after %d ms%n", run, configuration.getKey(), millis);
+            }
+        }
+        benchmark.report(results);
+        System.exit(0);
+    }
+
+    // Milliseconds from launching the process to the first 2xx response, -1 if the process died or timed out
+    long measure(List<String> command) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(5)).GET().build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("target/startup-benchmark.log")))
+                .start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline && process.isAlive()) {
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() / 100 == 2) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+            return -1;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    void report(Map<String, List<Long>> results) {
+        System.out.printf("%n%-24s %6s %8s %10s %8s %8s%n", "Configuration", "Runs", "Failed", "median ms", "min ms", "max ms");
+        results.forEach((name, times) -> {
+            List<Long> ok = times.stream().filter(millis -> millis >= 0).sorted().toList();
+            if (ok.isEmpty()) {
+                System.out.printf("%-24s %6d %8d %10s %8s %8s%n", name, times.size(), times.size(), "-", "-", "-");
+                return;
+            }
+            System.out.printf("%-24s %6d %8d %10d %8d %8d%n", name, times.size(), times.size() - ok.size(),
+                    ok.get(ok.size() / 2), ok.get(0), ok.get(ok.size() - 1));
+        });
+        System.out.println("Process output is appended to target/startup-benchmark.log");
+    }
+}
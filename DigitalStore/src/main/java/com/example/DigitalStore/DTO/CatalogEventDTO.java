@@ -0,0 +1,15 @@
+package com.example.DigitalStore.DTO;
+
+import java.time.Instant;
+
+/**
+ * A product change as sent to subscribers of /products/events. The id is the offset to resume from.
+ */
+public record CatalogEventDTO(
+        Long id,
+        String type,
+        Long productId,
+        String productCode,
+        String previousProductCode,
+        Instant createdAt
+) {}
@@ -0,0 +1,9 @@
+package com.example.DigitalStore.DTO;
+
+import java.util.List;
+
+public record CategoryNodeDTO(
+        Long id,
+        String categoryName,
+        List<CategoryNodeDTO> children
+) {}
@@ -0,0 +1,17 @@
+package com.example.DigitalStore.DTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Products matching a faceted filter.
+ * facets holds, per attribute (brand, category, size, color), the number of matching products
+ * for each value if that value were selected instead, the other filters staying as they are.
+ * inStockCount is the number of products that would match with the in-stock filter on.
+ */
+public record FacetResultDTO(
+        int total,
+        List<ProductsDTO> products,
+        Map<String, Map<Long, Integer>> facets,
+        int inStockCount
+) {}
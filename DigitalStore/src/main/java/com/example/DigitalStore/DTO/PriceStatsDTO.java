@@ -0,0 +1,24 @@
+package com.example.DigitalStore.DTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Price statistics of a group of products. min, max and average are null when the group is empty.
+ * Percentiles are keyed by the requested percentile, e.g. "p50", and are accurate to 1% of the price.
+ * Bands count the products with from <= price < to, to is null for the last band.
+ */
+public record PriceStatsDTO(
+        long count,
+        Double min,
+        Double max,
+        Double average,
+        Map<String, Double> percentiles,
+        List<PriceBand> bands
+) {
+    public record PriceBand(
+            double from,
+            Double to,
+            long count
+    ) {}
+}
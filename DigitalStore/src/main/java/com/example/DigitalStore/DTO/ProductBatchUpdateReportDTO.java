@@ -0,0 +1,20 @@
+package com.example.DigitalStore.DTO;
+
+import java.util.List;
+
+/**
+ * Result of a batch product update, with one result per entry in the order of the request.
+ * error is null for updated entries.
+ */
+public record ProductBatchUpdateReportDTO(
+        long updated,
+        long failed,
+        List<ItemResult> results
+) {
+    public record ItemResult(
+            int index,
+            Long id,
+            boolean updated,
+            String error
+    ) {}
+}
@@ -0,0 +1,14 @@
+package com.example.DigitalStore.DTO;
+
+/**
+ * One option of a product with the attributes used for faceted filtering.
+ * A product without options has a single row with null size, color and stock.
+ */
+public record ProductFacetRowDTO(
+        Long productId,
+        Long brandId,
+        Long categoryId,
+        Long sizeId,
+        Long colorId,
+        Integer stockQuantity
+) {}
@@ -0,0 +1,20 @@
+package com.example.DigitalStore.DTO;
+
+import java.util.List;
+
+/**
+ * Result of a bulk product import.
+ * Only the first errors are listed, errorsTruncated tells whether more rows failed than are reported.
+ */
+public record ProductImportReportDTO(
+        long imported,
+        long failed,
+        List<RowError> errors,
+        boolean errorsTruncated
+) {
+    public record RowError(
+            long line,
+            String productCode,
+            String error
+    ) {}
+}
@@ -6,6 +6,16 @@ public class ProductOptionsGetDTO {
     private String color;
     private Integer stockQuantity;
 
+    public ProductOptionsGetDTO() {
+    }
+
+    public ProductOptionsGetDTO(Long id, String size, String color, Integer stockQuantity) {
+        this.id = id;
+        this.size = size;
+        this.color = color;
+        this.stockQuantity = stockQuantity;
+    }
+
     // Getters και Setters
     public Long getId() {
         return id;
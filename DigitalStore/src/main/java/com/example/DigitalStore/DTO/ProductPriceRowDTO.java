@@ -0,0 +1,11 @@
+package com.example.DigitalStore.DTO;
+
+/**
+ * The price of a product with the attributes its price statistics are grouped by.
+ */
+public record ProductPriceRowDTO(
+        Long productId,
+        Long categoryId,
+        Long brandId,
+        Double price
+) {}
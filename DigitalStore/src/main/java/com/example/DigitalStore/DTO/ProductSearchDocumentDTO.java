@@ -0,0 +1,13 @@
+package com.example.DigitalStore.DTO;
+
+/**
+ * The searchable fields of a product, loaded without the options for the search index.
+ */
+public record ProductSearchDocumentDTO(
+        Long id,
+        String productCode,
+        String productName,
+        String description,
+        Double price,
+        String brandName
+) {}
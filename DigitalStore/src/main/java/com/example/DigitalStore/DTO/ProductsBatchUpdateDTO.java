@@ -0,0 +1,17 @@
+package com.example.DigitalStore.DTO;
+
+/**
+ * One entry of a batch update: the id of the product and the fields to change, as in a single update.
+ */
+public class ProductsBatchUpdateDTO extends ProductsUpdateDTO {
+
+    private Long id;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+}
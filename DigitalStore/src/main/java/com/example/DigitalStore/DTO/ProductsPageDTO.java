@@ -0,0 +1,12 @@
+package com.example.DigitalStore.DTO;
+
+import java.util.List;
+
+/**
+ * One page of the product listing.
+ * nextCursor is passed back as the cursor parameter to read the following page, null on the last page.
+ */
+public record ProductsPageDTO(
+        List<ProductsDTO> products,
+        String nextCursor
+) {}
@@ -0,0 +1,13 @@
+package com.example.DigitalStore.DTO;
+
+import com.example.DigitalStore.model.ReservationStatus;
+
+import java.time.Instant;
+
+public record StockReservationDTO(
+        Long id,
+        Long optionId,
+        Integer quantity,
+        ReservationStatus status,
+        Instant expiresAt
+) {}
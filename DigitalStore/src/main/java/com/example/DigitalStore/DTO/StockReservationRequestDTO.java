@@ -0,0 +1,10 @@
+package com.example.DigitalStore.DTO;
+
+/**
+ * @param quantity   Number of items to reserve.
+ * @param ttlSeconds How long the reservation holds the stock, null for the configured default.
+ */
+public record StockReservationRequestDTO(
+        Integer quantity,
+        Long ttlSeconds
+) {}
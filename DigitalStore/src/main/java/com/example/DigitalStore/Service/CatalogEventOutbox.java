@@ -0,0 +1,55 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.model.CatalogEvents;
+import com.example.DigitalStore.repository.CatalogEventsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Writes every product change into the catalog_events outbox before the changing transaction commits,
+ * so an event is stored if and only if its change is. {@link CatalogEventPublisher} sends them on to subscribers.
+ */
+@Service
+public class CatalogEventOutbox {
+
+    private final CatalogEventsRepository catalogEventsRepository;
+    private final Duration retention;
+
+    public CatalogEventOutbox(CatalogEventsRepository catalogEventsRepository,
+                              @Value("${catalog-events.retention:P7D}") Duration retention) {
+        this.catalogEventsRepository = catalogEventsRepository;
+        this.retention = retention;
+    }
+
+    // Last of the before-commit listeners, the id is taken as close to the commit as possible,
+    // so lower ids rarely become visible after higher ones
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        CatalogEvents catalogEvent = new CatalogEvents();
+        catalogEvent.setType(event.type().name());
+        catalogEvent.setProductId(event.productId());
+        catalogEvent.setProductCode(event.productCode());
+        catalogEvent.setPreviousProductCode(event.previousProductCode());
+        catalogEvent.setCreatedAt(Instant.now());
+        catalogEventsRepository.save(catalogEvent);
+    }
+
+    /**
+     * Deletes events older than the retention, clients cannot resume from before that.
+     */
+    @Scheduled(fixedDelayString = "${catalog-events.cleanup-interval:PT1H}")
+    @Transactional
+    public void deleteExpiredEvents() {
+        catalogEventsRepository.deleteCreatedBefore(Instant.now().minus(retention));
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.CatalogEventDTO;
+import com.example.DigitalStore.config.ReadWriteRoutingDataSource;
+import com.example.DigitalStore.config.SqlStatementListener;
+import com.example.DigitalStore.repository.CatalogEventsRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends the events of the catalog_events outbox to subscribers as server-sent events.
+ * The outbox is polled on one background thread, so the buffer of recent events and the offsets of the
+ * subscribers need no locking. A subscriber resumes after the last event id it has seen, from the buffer or,
+ * when it is further behind, from the table.
+ * The poll thread only queues events, every subscriber has a bounded queue that is sent on a thread of its own,
+ * so a slow client never delays the others. A subscriber whose queue stays full for the send timeout is completed,
+ * its client reconnects with the last event id it received and resumes from the table.
+ * <p>
+ * Ids are taken when the event is written, before its transaction commits, so a lower id can become visible
+ * after a higher one. Events are therefore published in id order up to the first missing id. A missing id
+ * is waited for up to the gap timeout, measured on this instance's clock; after that it is taken to belong
+ * to a rolled back transaction and skipped.
+ */
+@Service
+public class CatalogEventPublisher {
+
+    private static final int PAGE_SIZE = 500;
+    private static final Logger log = LoggerFactory.getLogger(CatalogEventPublisher.class);
+
+    private final CatalogEventsRepository catalogEventsRepository;
+    private final Duration pollInterval;
+    private final long gapTimeoutNanos;
+    private final Duration heartbeat;
+    private final int bufferSize;
+    private final long emitterTimeoutMillis;
+    private final int subscriberQueueSize;
+    private final long sendTimeoutNanos;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("catalog-events").daemon().factory());
+    // Platform threads, SseEmitter sends while holding its lock and a blocked write would pin a virtual thread
+    private final ExecutorService sendExecutor = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("catalog-events-send-", 0).daemon().factory());
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Accessed only from the executor thread
+    private final ArrayDeque<CatalogEventDTO> buffer = new ArrayDeque<>();
+    private long lastPublishedId = -1;
+    // The first missing id after the published ones, and when it was first found missing
+    private long gapId = -1;
+    private long gapSince;
+    private Instant lastHeartbeat = Instant.now();
+
+    public CatalogEventPublisher(CatalogEventsRepository catalogEventsRepository,
+                                 @Value("${catalog-events.poll-interval:PT1S}") Duration pollInterval,
+                                 @Value("${catalog-events.gap-timeout:PT30S}") Duration gapTimeout,
+                                 @Value("${catalog-events.heartbeat:PT15S}") Duration heartbeat,
+                                 @Value("${catalog-events.buffer-size:10000}") int bufferSize,
+                                 @Value("${catalog-events.emitter-timeout:PT30M}") Duration emitterTimeout,
+                                 @Value("${catalog-events.subscriber-queue-size:1000}") int subscriberQueueSize,
+                                 @Value("${catalog-events.send-timeout:PT30S}") Duration sendTimeout) {
+        this.catalogEventsRepository = catalogEventsRepository;
+        this.pollInterval = pollInterval;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.heartbeat = heartbeat;
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(() -> {
+            lastPublishedId = catalogEventsRepository.findLastId();
+            // Clients that subscribed for new events before the start get the events from now on
+            subscribers.forEach(subscriber -> subscriber.offset = Math.max(subscriber.offset, lastPublishedId));
+        });
+        executor.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribes to product changes.
+     *
+     * @param afterId The id of the last event the client has seen, null to receive only new events.
+     * @return The emitter the events are sent to.
+     */
+    public SseEmitter subscribe(Long afterId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        subscribe(emitter, afterId);
+        return emitter;
+    }
+
+    void subscribe(SseEmitter emitter, Long afterId) {
+        Subscriber subscriber = new Subscriber(emitter, afterId, SqlStatementListener.currentRequest(), subscriberQueueSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        executor.execute(() -> {
+            if (subscriber.offset == null) {
+                subscriber.offset = lastPublishedId;
+            }
+            subscribers.add(subscriber);
+            queuePending(subscriber);
+            startSending(subscriber);
+        });
+    }
+
+    // Runs on the executor thread
+    void poll() {
+        try {
+            List<CatalogEventDTO> events;
+            boolean complete = true;
+            do {
+                long afterId = lastPublishedId;
+                events = ReadWriteRoutingDataSource.onPrimary(() -> catalogEventsRepository.findAfter(afterId, Limit.of(PAGE_SIZE)));
+                for (CatalogEventDTO event : events) {
+                    if (event.id() != lastPublishedId + 1 && !gapTimedOut(event.id())) {
+                        complete = false; // published with a later poll, once the missing ids are there or timed out
+                        break;
+                    }
+                    buffer.addLast(event);
+                    if (buffer.size() > bufferSize) {
+                        buffer.removeFirst();
+                    }
+                    lastPublishedId = event.id();
+                }
+            } while (complete && events.size() == PAGE_SIZE);
+
+            boolean sendHeartbeat = Instant.now().isAfter(lastHeartbeat.plus(heartbeat));
+            if (sendHeartbeat) {
+                lastHeartbeat = Instant.now();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.queue.remainingCapacity() == 0 && System.nanoTime() - subscriber.lastProgress > sendTimeoutNanos) {
+                    drop(subscriber);
+                    continue;
+                }
+                queuePending(subscriber);
+                if (sendHeartbeat) {
+                    // A comment keeps proxies from closing an idle connection
+                    queue(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+                startSending(subscriber);
+            }
+        } catch (RuntimeException e) {
+            // Keep polling, the next run retries from the same offset
+            log.warn("Polling the catalog event outbox failed", e);
+        }
+    }
+
+    // Whether the ids between the last published one and the given one have been missing for the gap timeout
+    private boolean gapTimedOut(long nextId) {
+        long missingId = lastPublishedId + 1;
+        if (gapId != missingId) {
+            gapId = missingId;
+            gapSince = System.nanoTime();
+            return false;
+        }
+        if (System.nanoTime() - gapSince < gapTimeoutNanos) {
+            return false;
+        }
+        log.warn("Skipping catalog event ids {} to {}, they were not committed within {} ms",
+                missingId, nextId - 1, Duration.ofNanos(gapTimeoutNanos).toMillis());
+        return true;
+    }
+
+    // Queues the published events the subscriber has not seen yet, from the buffer if it still has them.
+    // What does not fit into its queue is queued by a later poll.
+    private void queuePending(Subscriber subscriber) {
+        while (subscriber.offset < lastPublishedId && subscribers.contains(subscriber) && subscriber.queue.remainingCapacity() > 0) {
+            int limit = Math.min(PAGE_SIZE, subscriber.queue.remainingCapacity());
+            // Reading from the table is counted for the subscribing request, the poll itself is shared by all
+            List<CatalogEventDTO> events = buffer.isEmpty() || subscriber.offset < buffer.peekFirst().id() - 1
+                    ? SqlStatementListener.inRequest(subscriber.sqlStats, () -> ReadWriteRoutingDataSource.onPrimary(() ->
+                            catalogEventsRepository.findAfter(subscriber.offset, Limit.of(limit))))
+                    : eventsInBufferAfter(subscriber.offset, limit);
+            for (CatalogEventDTO event : events) {
+                if (event.id() > lastPublishedId) {
+                    return; // not published yet, queued with the next poll
+                }
+                if (!queue(subscriber, SseEmitter.event().id(Long.toString(event.id())).name(event.type()).data(event))) {
+                    return;
+                }
+                subscriber.offset = event.id();
+            }
+            if (events.isEmpty()) {
+                subscriber.offset = lastPublishedId; // the events in between were deleted by the retention
+            }
+        }
+    }
+
+    private List<CatalogEventDTO> eventsInBufferAfter(long offset, int limit) {
+        List<CatalogEventDTO> events = new ArrayList<>();
+        for (CatalogEventDTO event : buffer) {
+            if (event.id() > offset && events.size() < limit) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private boolean queue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.queue.isEmpty()) {
+            // Nothing left to send, so the subscriber is not behind however long it has been idle
+            subscriber.lastProgress = System.nanoTime();
+        }
+        return subscriber.queue.offer(event);
+    }
+
+    // At most one thread sends to a subscriber at a time, so its events keep their order
+    private void startSending(Subscriber subscriber) {
+        if (!subscriber.queue.isEmpty() && subscriber.sending.compareAndSet(false, true)) {
+            sendExecutor.execute(() -> sendQueued(subscriber));
+        }
+    }
+
+    // Runs on a send thread
+    private void sendQueued(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(event);
+                subscriber.lastProgress = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // An event queued after the queue was found empty and before the flag was cleared
+        startSending(subscriber);
+    }
+
+    // The emitter is completed on a send thread, completing waits for a send that may be blocked on the client
+    private void drop(Subscriber subscriber) {
+        log.info("Completing an event subscriber that did not receive any event for {} ms", Duration.ofNanos(sendTimeoutNanos).toMillis());
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        sendExecutor.execute(subscriber.emitter::complete);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        sendExecutor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final SqlStatementListener.RequestSqlStats sqlStats;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // The id of the last event queued, changed only on the executor thread
+        private Long offset;
+        // When the last event was sent, or the queue was last found empty
+        private volatile long lastProgress = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, Long offset, SqlStatementListener.RequestSqlStats sqlStats, int queueSize) {
+            this.emitter = emitter;
+            this.offset = offset;
+            this.sqlStats = sqlStats;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.config.ReadWriteRoutingDataSource;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized JSON of the full product listing and of every reference table, kept as bytes and gzipped bytes,
+ * so the catalog endpoints answer with a memory copy instead of query, mapping and serialization.
+ * Snapshots are rebuilt in the background after committed changes; changes arriving while a rebuild is
+ * pending are combined into that rebuild. A snapshot is only served while the catalog version it was built
+ * from is still the current one, otherwise the caller falls back to building the response itself.
+ * A snapshot whose JSON grows beyond catalog-snapshot.max-size is not kept, that response is then always
+ * streamed from the database, so a large catalog cannot fill the heap.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    public static final String PRODUCTS = "products";
+    public static final String BRANDS = "brands";
+    public static final String SIZES = "sizes";
+    public static final String COLORS = "colors";
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY_TREE = "categoryTree";
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final ProductService productService;
+    private final ReferenceDataRegistry referenceData;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration debounce;
+    private final long maxBytes;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("catalog-snapshot").daemon().factory());
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile Map<String, Snapshot> snapshots = Map.of();
+    // The version of the last rebuild, a snapshot missing at this version was too large and is not retried
+    private volatile long builtVersion = -1;
+
+    public CatalogSnapshotService(ProductService productService, ReferenceDataRegistry referenceData, CatalogVersion catalogVersion,
+                                  ObjectMapper objectMapper,
+                                  @Value("${catalog-snapshot.enabled:true}") boolean enabled,
+                                  @Value("${catalog-snapshot.debounce:PT1S}") Duration debounce,
+                                  @Value("${catalog-snapshot.max-size:64MB}") DataSize maxSize) {
+        this.productService = productService;
+        this.referenceData = referenceData;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.debounce = debounce;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild(Duration.ZERO);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() != ProductChangedEvent.Type.STOCK_CHANGED) { // stock is not part of any snapshot
+            scheduleRebuild(debounce);
+        }
+    }
+
+    /**
+     * Returns the snapshot if it is up to date with the catalog.
+     * A missing or outdated snapshot schedules a rebuild, reference data changes are picked up this way.
+     *
+     * @param name One of the snapshot names of this class, e.g. {@link #PRODUCTS}.
+     * @return The current snapshot, or empty if the response has to be built from the data.
+     */
+    public Optional<Snapshot> get(String name) {
+        long version = catalogVersion.number();
+        Snapshot snapshot = snapshots.get(name);
+        if (snapshot != null && snapshot.version() == version) {
+            return Optional.of(snapshot);
+        }
+        if (builtVersion != version) {
+            scheduleRebuild(debounce);
+        }
+        return Optional.empty();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if the snapshots were rebuilt for the current catalog version, a snapshot that is too large
+     * is still missing then.
+     */
+    public boolean isCurrent() {
+        return builtVersion == catalogVersion.number();
+    }
+
+    private void scheduleRebuild(Duration delay) {
+        if (enabled && rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuild, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // The version is read before the data, so a snapshot never claims a version newer than its data.
+    // The data is read from the primary for the same reason, a lagging replica could still return the old rows.
+    void rebuild() {
+        rebuildScheduled.set(false);
+        long version = catalogVersion.number();
+        try {
+            Map<String, Snapshot> built = ReadWriteRoutingDataSource.onPrimary(() -> build(version));
+            snapshots = Map.copyOf(built);
+            builtVersion = version;
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding the catalog snapshot failed, responses are built per request until the next rebuild", e);
+        }
+    }
+
+    private Map<String, Snapshot> build(long version) {
+        try {
+            Map<String, Snapshot> built = new HashMap<>();
+            putIfNotTooLarge(built, PRODUCTS, () -> snapshot(version, out -> {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                    generator.writeStartArray();
+                    productService.streamAllProducts(product -> {
+                        try {
+                            generator.writeObject(product);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    generator.writeEndArray();
+                }
+            }));
+            putIfNotTooLarge(built, BRANDS, () -> snapshot(version, referenceData.getBrandNames()));
+            putIfNotTooLarge(built, SIZES, () -> snapshot(version, referenceData.getSizeNames()));
+            putIfNotTooLarge(built, COLORS, () -> snapshot(version, referenceData.getColorNames()));
+            putIfNotTooLarge(built, CATEGORIES, () -> snapshot(version, referenceData.getCategories()));
+            putIfNotTooLarge(built, CATEGORY_TREE, () -> snapshot(version, referenceData.getCategoryTree()));
+            return built;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void putIfNotTooLarge(Map<String, Snapshot> built, String name, SnapshotBuilder builder) throws IOException {
+        try {
+            built.put(name, builder.build());
+        } catch (SnapshotTooLargeException e) {
+            log.info("The {} snapshot is larger than {} bytes, it is served from the database instead", name, maxBytes);
+        }
+    }
+
+    private Snapshot snapshot(long version, Object value) throws IOException {
+        return snapshot(version, out -> objectMapper.writeValue(out, value));
+    }
+
+    private Snapshot snapshot(long version, JsonWriter writer) throws IOException {
+        ByteArrayOutputStream json = new CappedOutputStream(maxBytes);
+        writer.write(json);
+        byte[] jsonBytes = json.toByteArray();
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream(jsonBytes.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(jsonBytes);
+        }
+        return new Snapshot(version, jsonBytes, gzip.toByteArray());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private interface JsonWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private interface SnapshotBuilder {
+        Snapshot build() throws IOException;
+    }
+
+    // Fails as soon as the content exceeds the limit, so an oversized listing is not serialized to the end
+    private static class CappedOutputStream extends ByteArrayOutputStream {
+        private final long maxBytes;
+
+        CappedOutputStream(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            super.write(b, off, len);
+        }
+
+        private void ensureCapacity(int len) {
+            if (count + (long) len > maxBytes) {
+                throw new SnapshotTooLargeException();
+            }
+        }
+    }
+
+    // Unchecked, it has to pass through the product stream and Jackson unchanged
+    private static class SnapshotTooLargeException extends RuntimeException {
+    }
+
+    /**
+     * @param version The catalog version the snapshot was built from.
+     * @param json    The response body as JSON.
+     * @param gzip    The same body gzip compressed.
+     */
+    public record Snapshot(long version, byte[] json, byte[] gzip) {}
+}
@@ -0,0 +1,148 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.config.ReadWriteRoutingDataSource;
+import com.example.DigitalStore.model.CatalogVersions;
+import com.example.DigitalStore.repository.CatalogVersionsRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version of the catalog, moved forward by every committed write of products or reference data.
+ * Stock changes are not counted, the versioned responses do not contain stock.
+ * The catalog endpoints use it as ETag and Last-Modified, so a client polling unchanged data
+ * gets a 304 without the database being queried.
+ * <p>
+ * The version is the catalog_versions row, so all instances behind a load balancer answer with the same ETag.
+ * It is counted after the change committed, in a short transaction of its own, so the row is not locked
+ * for the duration of every catalog write.
+ * An instance sees its own changes right after commit and the changes of other instances within
+ * catalog-version.poll-interval, the only query made for conditional requests.
+ */
+@Service
+public class CatalogVersion {
+
+    // The id of the single row
+    private static final long CATALOG = 1L;
+
+    private final CatalogVersionsRepository catalogVersionsRepository;
+    private final AtomicReference<Version> current = new AtomicReference<>(new Version(0, Instant.EPOCH, Instant.EPOCH));
+
+    public CatalogVersion(CatalogVersionsRepository catalogVersionsRepository) {
+        this.catalogVersionsRepository = catalogVersionsRepository;
+    }
+
+    // Counted once per transaction, however many products it changed, and only after it committed.
+    // The row is updated in a transaction of its own, so writers never wait for each other on it.
+    // Only registers the count, ahead of the outbox write
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void countChange(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.STOCK_CHANGED) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogVersion.this);
+            }
+
+            // Before the after-commit listeners, e.g. of the catalog snapshot, which read the version
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+
+    /**
+     * Counts a change right away and applies it, e.g. a change of reference data.
+     * A version that is counted after the commit is missed if the instance stops in between,
+     * clients then keep their cached responses until the next change.
+     */
+    public void bump() {
+        increment();
+        refresh();
+    }
+
+    /**
+     * Reads the shared version, creating the row on first start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${catalog-version.poll-interval:PT1S}", fixedDelayString = "${catalog-version.poll-interval:PT1S}")
+    public void refresh() {
+        CatalogVersions row = ReadWriteRoutingDataSource.onPrimary(() -> catalogVersionsRepository.findById(CATALOG))
+                .orElseGet(this::create);
+        Version read = new Version(row.getVersion(), row.getCreatedAt(), row.getUpdatedAt());
+        // Never backwards, a refresh may have read the row before a change that was applied meanwhile
+        current.accumulateAndGet(read, (previous, next) -> next.number() >= previous.number() ? next : previous);
+    }
+
+    public long number() {
+        return current.get().number();
+    }
+
+    /**
+     * @param representation Names the format of the response, e.g. "json", so each format has its own ETag.
+     */
+    public String eTag(String representation) {
+        Version version = current.get();
+        return "\"" + Long.toString(version.createdAt().getEpochSecond(), 36) + "-" + version.number() + "-" + representation + "\"";
+    }
+
+    public long lastModified() {
+        return current.get().lastModified().toEpochMilli();
+    }
+
+    private void increment() {
+        if (catalogVersionsRepository.increment(CATALOG, now()) == 0) {
+            create();
+        }
+    }
+
+    private CatalogVersions create() {
+        CatalogVersions row = new CatalogVersions();
+        row.setId(CATALOG);
+        row.setVersion(1);
+        row.setCreatedAt(now());
+        row.setUpdatedAt(row.getCreatedAt());
+        try {
+            return catalogVersionsRepository.saveAndFlush(row);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created it first
+            return catalogVersionsRepository.findById(CATALOG).orElseThrow();
+        }
+    }
+
+    // HTTP dates have a resolution of seconds
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private record Version(long number, Instant createdAt, Instant lastModified) {}
+}
@@ -0,0 +1,75 @@
+package com.example.DigitalStore.Service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The products changed by one transaction, collected for an in-memory index that applies them all at once after
+ * the commit: one query for the changed products instead of one per event. Nothing is applied on rollback.
+ */
+final class ChangedProducts {
+
+    private final Set<Long> ids = new LinkedHashSet<>();
+    private final Set<Long> deletedIds = new LinkedHashSet<>();
+
+    private ChangedProducts() {
+    }
+
+    /**
+     * Adds the change to the changes the index collected in the current transaction. The first change of a
+     * transaction registers the callback for after its commit. Without a transaction the change is applied right away.
+     *
+     * @param index The index the changes are collected for, each index collects its own.
+     * @param event The change.
+     * @param apply Applies the collected changes to the index.
+     */
+    static void collect(Object index, ProductChangedEvent event, Consumer<ChangedProducts> apply) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ChangedProducts changes = new ChangedProducts();
+            changes.add(event);
+            apply.accept(changes);
+            return;
+        }
+        ChangedProducts changes = (ChangedProducts) TransactionSynchronizationManager.getResource(index);
+        if (changes == null) {
+            ChangedProducts newChanges = new ChangedProducts();
+            TransactionSynchronizationManager.bindResource(index, newChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.accept(newChanges);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(index);
+                }
+            });
+            changes = newChanges;
+        }
+        changes.add(event);
+    }
+
+    private void add(ProductChangedEvent event) {
+        ids.add(event.productId());
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            deletedIds.add(event.productId());
+        }
+    }
+
+    // Every changed product, the index removes them before adding the reloaded ones
+    Set<Long> ids() {
+        return ids;
+    }
+
+    // The changed products that still exist, to be reloaded
+    Set<Long> idsToLoad() {
+        Set<Long> idsToLoad = new LinkedHashSet<>(ids);
+        idsToLoad.removeAll(deletedIds);
+        return idsToLoad;
+    }
+}
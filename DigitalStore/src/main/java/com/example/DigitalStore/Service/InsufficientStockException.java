@@ -0,0 +1,7 @@
+package com.example.DigitalStore.Service;
+
+public class InsufficientStockException extends Exception {
+    public InsufficientStockException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.PriceStatsDTO;
+import com.example.DigitalStore.DTO.ProductPriceRowDTO;
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Price statistics of all products, per category and per brand, kept in memory and updated after every
+ * committed product change instead of being computed from the table for every request.
+ * Every group keeps its count, sum, the number of products per price and per configured price band,
+ * and a histogram with buckets 1% wide for the percentiles. Reading the statistics of a group does not
+ * depend on the number of products, only on the number of distinct buckets.
+ */
+@Service
+public class PriceStatisticsService {
+
+    // Bucket i holds the prices in cents from 1.01^(i-1) up to 1.01^i, bucket 0 holds the price 0
+    private static final double BUCKET_GROWTH = Math.log(1.01);
+
+    private final ProductsRepository productsRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final long[] bandLimits;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Groups groups;
+
+    public PriceStatisticsService(ProductsRepository productsRepository, ReferenceDataRegistry referenceData,
+                                  @Value("${price-stats.bands:25,50,100,250,500,1000}") List<Double> bands) {
+        this.productsRepository = productsRepository;
+        this.referenceData = referenceData;
+        this.bandLimits = bands.stream().mapToLong(PriceStatisticsService::toCents).sorted().distinct().toArray();
+        this.groups = new Groups(bandLimits.length + 1);
+    }
+
+    /**
+     * Builds the statistics from all products in the database and replaces the current ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        Groups newGroups = new Groups(bandLimits.length + 1);
+        try (Stream<ProductPriceRowDTO> rows = productsRepository.streamPriceRows()) {
+            rows.forEach(row -> add(newGroups, row));
+        }
+
+        lock.writeLock().lock();
+        try {
+            groups = newGroups;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Collected until the commit, then the changed products are reloaded with one query
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.STOCK_CHANGED) {
+            return; // prices did not change
+        }
+        ChangedProducts.collect(this, event, this::apply);
+    }
+
+    private void apply(ChangedProducts changes) {
+        List<ProductPriceRowDTO> rows = changes.idsToLoad().isEmpty() ? List.of() : productsRepository.findPriceRows(changes.idsToLoad());
+
+        lock.writeLock().lock();
+        try {
+            changes.ids().forEach(productId -> remove(groups, productId));
+            rows.forEach(row -> add(groups, row));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the price statistics of the products matching the filter.
+     * A category also includes the products of all its subcategories.
+     *
+     * @param categoryId  The category, null for any category.
+     * @param brandId     The brand, null for any brand.
+     * @param percentiles The percentiles to return, each between 0 and 100.
+     * @return The statistics, with count 0 if no product matches.
+     */
+    public PriceStatsDTO getStatistics(Long categoryId, Long brandId, List<Double> percentiles) {
+        if (categoryId != null && brandId != null) {
+            throw new IllegalArgumentException("Filter by either a category or a brand, not both.");
+        }
+        validate(percentiles);
+        Set<Long> categoryIds = categoryId == null ? Set.of() : referenceData.getCategorySubtree(categoryId);
+
+        lock.readLock().lock();
+        try {
+            Summary summary;
+            if (categoryId != null) {
+                summary = new Summary(bandLimits.length + 1);
+                for (Long subcategoryId : categoryIds) {
+                    Summary subcategory = groups.categories.get(subcategoryId);
+                    if (subcategory != null) {
+                        summary.merge(subcategory);
+                    }
+                }
+            } else if (brandId != null) {
+                summary = groups.brands.getOrDefault(brandId, new Summary(bandLimits.length + 1));
+            } else {
+                summary = groups.all;
+            }
+            return toDTO(summary, percentiles);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the price statistics of every category, a category counting only its own products.
+     *
+     * @param percentiles The percentiles to return, each between 0 and 100.
+     * @return The statistics by category id.
+     */
+    public Map<Long, PriceStatsDTO> getStatisticsByCategory(List<Double> percentiles) {
+        validate(percentiles);
+        lock.readLock().lock();
+        try {
+            return toDTOs(groups.categories, percentiles);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the price statistics of every brand.
+     *
+     * @param percentiles The percentiles to return, each between 0 and 100.
+     * @return The statistics by brand id.
+     */
+    public Map<Long, PriceStatsDTO> getStatisticsByBrand(List<Double> percentiles) {
+        validate(percentiles);
+        lock.readLock().lock();
+        try {
+            return toDTOs(groups.brands, percentiles);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, PriceStatsDTO> toDTOs(Map<Long, Summary> summaries, List<Double> percentiles) {
+        Map<Long, PriceStatsDTO> result = new TreeMap<>();
+        summaries.forEach((id, summary) -> result.put(id, toDTO(summary, percentiles)));
+        return result;
+    }
+
+    private PriceStatsDTO toDTO(Summary summary, List<Double> percentiles) {
+        Map<String, Double> percentileValues = new LinkedHashMap<>();
+        for (Double percentile : percentiles) {
+            percentileValues.put("p" + format(percentile), summary.count == 0 ? null : toPrice(summary.percentile(percentile)));
+        }
+        List<PriceStatsDTO.PriceBand> bands = new ArrayList<>(bandLimits.length + 1);
+        for (int i = 0; i <= bandLimits.length; i++) {
+            bands.add(new PriceStatsDTO.PriceBand(
+                    i == 0 ? 0.0 : toPrice(bandLimits[i - 1]),
+                    i == bandLimits.length ? null : toPrice(bandLimits[i]),
+                    summary.bandCounts[i]));
+        }
+        if (summary.count == 0) {
+            return new PriceStatsDTO(0, null, null, null, percentileValues, bands);
+        }
+        return new PriceStatsDTO(summary.count, toPrice(summary.prices.firstKey()), toPrice(summary.prices.lastKey()),
+                Math.round((double) summary.sum / summary.count) / 100.0, percentileValues, bands);
+    }
+
+    // Caller holds the write lock, or owns the groups during a rebuild
+    private void add(Groups groups, ProductPriceRowDTO row) {
+        if (row.price() == null) {
+            return;
+        }
+        PricedProduct product = new PricedProduct(row.categoryId(), row.brandId(), toCents(row.price()));
+        int band = band(product.cents());
+        groups.all.add(product.cents(), band);
+        groups.categories.computeIfAbsent(product.categoryId(), id -> new Summary(bandLimits.length + 1)).add(product.cents(), band);
+        groups.brands.computeIfAbsent(product.brandId(), id -> new Summary(bandLimits.length + 1)).add(product.cents(), band);
+        groups.products.put(row.productId(), product);
+    }
+
+    // Caller holds the write lock
+    private void remove(Groups groups, Long productId) {
+        PricedProduct product = groups.products.remove(productId);
+        if (product == null) {
+            return;
+        }
+        int band = band(product.cents());
+        groups.all.remove(product.cents(), band);
+        removeFrom(groups.categories, product.categoryId(), product.cents(), band);
+        removeFrom(groups.brands, product.brandId(), product.cents(), band);
+    }
+
+    private static void removeFrom(Map<Long, Summary> summaries, Long id, long cents, int band) {
+        Summary summary = summaries.get(id);
+        summary.remove(cents, band);
+        if (summary.count == 0) {
+            summaries.remove(id);
+        }
+    }
+
+    private int band(long cents) {
+        int index = Arrays.binarySearch(bandLimits, cents);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private static void validate(List<Double> percentiles) {
+        for (Double percentile : percentiles) {
+            if (percentile == null || percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentiles must be between 0 and 100.");
+            }
+        }
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+
+    private static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    private static double toPrice(long cents) {
+        return cents / 100.0;
+    }
+
+    static int bucket(long cents) {
+        return cents <= 0 ? 0 : 1 + (int) Math.floor(Math.log(cents) / BUCKET_GROWTH);
+    }
+
+    private record PricedProduct(Long categoryId, Long brandId, long cents) {}
+
+    // Not thread-safe, guarded by the lock of the enclosing service
+    private static class Groups {
+        private final Summary all;
+        private final Map<Long, Summary> categories = new HashMap<>();
+        private final Map<Long, Summary> brands = new HashMap<>();
+        private final Map<Long, PricedProduct> products = new HashMap<>();
+
+        Groups(int bandCount) {
+            this.all = new Summary(bandCount);
+        }
+    }
+
+    // Not thread-safe, guarded by the lock of the enclosing service
+    private static class Summary {
+        private long count;
+        private long sum;
+        // Number of products per price in cents, for the exact minimum and maximum
+        private final TreeMap<Long, Integer> prices = new TreeMap<>();
+        private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+        private final long[] bandCounts;
+
+        Summary(int bandCount) {
+            this.bandCounts = new long[bandCount];
+        }
+
+        void add(long cents, int band) {
+            count++;
+            sum += cents;
+            prices.merge(cents, 1, Integer::sum);
+            buckets.merge(bucket(cents), 1L, Long::sum);
+            bandCounts[band]++;
+        }
+
+        void remove(long cents, int band) {
+            count--;
+            sum -= cents;
+            prices.computeIfPresent(cents, (price, n) -> n == 1 ? null : n - 1);
+            buckets.computeIfPresent(bucket(cents), (bucket, n) -> n == 1 ? null : n - 1);
+            bandCounts[band]--;
+        }
+
+        void merge(Summary other) {
+            count += other.count;
+            sum += other.sum;
+            if (!other.prices.isEmpty()) {
+                // Only the extremes are needed from a merged summary
+                prices.merge(other.prices.firstKey(), 1, Integer::sum);
+                prices.merge(other.prices.lastKey(), 1, Integer::sum);
+            }
+            other.buckets.forEach((bucket, n) -> buckets.merge(bucket, n, Long::sum));
+            for (int i = 0; i < bandCounts.length; i++) {
+                bandCounts[i] += other.bandCounts[i];
+            }
+        }
+
+        // The middle of the bucket holding the percentile, kept within the exact minimum and maximum
+        long percentile(double percentile) {
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (Map.Entry<Integer, Long> entry : buckets.entrySet()) {
+                seen += entry.getValue();
+                if (seen >= rank) {
+                    long middle = entry.getKey() == 0 ? 0 : Math.round(Math.exp((entry.getKey() - 0.5) * BUCKET_GROWTH));
+                    return Math.clamp(middle, prices.firstKey(), prices.lastKey());
+                }
+            }
+            return prices.lastKey();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductBatchUpdateReportDTO;
+import com.example.DigitalStore.DTO.ProductBatchUpdateReportDTO.ItemResult;
+import com.example.DigitalStore.DTO.ProductsBatchUpdateDTO;
+import com.example.DigitalStore.model.Products;
+import com.example.DigitalStore.repository.ProductsRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies partial updates to many products at once.
+ * The products of a chunk are loaded with their options in one query and the changes are written with
+ * JDBC batching in one transaction per chunk. Reference data comes from the in-memory registry, so
+ * validating sizes, colors, brands and categories costs no query at all.
+ */
+@Service
+public class ProductBatchUpdateService {
+
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    private final ProductService productService;
+    private final ProductsRepository productsRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public ProductBatchUpdateService(ProductService productService, ProductsRepository productsRepository, EntityManager entityManager,
+                                     PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                                     @Value("${product-batch-update.chunk-size:500}") int chunkSize) {
+        this.productService = productService;
+        this.productsRepository = productsRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Updates the products of the batch, every entry as in a single update.
+     * An entry that fails validation leaves its product unchanged and does not stop the others.
+     * If a chunk cannot be committed, e.g. because of a duplicate product code, none of its entries are saved.
+     *
+     * @param batch The entries, each with the id of the product to change.
+     * @return The result of every entry.
+     */
+    public ProductBatchUpdateReportDTO updateProducts(List<ProductsBatchUpdateDTO> batch) {
+        if (batch == null || batch.isEmpty()) {
+            throw new IllegalArgumentException("The batch must contain at least one product.");
+        }
+        if (batch.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("The batch cannot contain more than " + MAX_BATCH_SIZE + " products.");
+        }
+
+        ItemResult[] results = new ItemResult[batch.size()];
+        List<Integer> chunk = new ArrayList<>(chunkSize);
+        Set<Long> seenIds = new HashSet<>();
+        for (int index = 0; index < batch.size(); index++) {
+            Long id = batch.get(index).getId();
+            if (id == null) {
+                results[index] = new ItemResult(index, null, false, "Product id must be provided.");
+            } else if (!seenIds.add(id)) {
+                results[index] = new ItemResult(index, id, false, "Product appears more than once in the batch.");
+            } else {
+                chunk.add(index);
+                if (chunk.size() == chunkSize) {
+                    updateChunk(batch, chunk, results);
+                }
+            }
+        }
+        updateChunk(batch, chunk, results);
+
+        long updated = Arrays.stream(results).filter(ItemResult::updated).count();
+        return new ProductBatchUpdateReportDTO(updated, results.length - updated, List.of(results));
+    }
+
+    private void updateChunk(List<ProductsBatchUpdateDTO> batch, List<Integer> chunk, ItemResult[] results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Integer> applied = new ArrayList<>(chunk.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, Products> products = productsRepository.findWithOptionsByIdIn(
+                                chunk.stream().map(index -> batch.get(index).getId()).toList()).stream()
+                        .collect(Collectors.toMap(Products::getId, Function.identity()));
+
+                for (Integer index : chunk) {
+                    ProductsBatchUpdateDTO update = batch.get(index);
+                    Products product = products.get(update.getId());
+                    if (product == null) {
+                        results[index] = new ItemResult(index, update.getId(), false, "Product not found.");
+                        continue;
+                    }
+                    String previousProductCode = product.getProductCode();
+                    try {
+                        productService.applyUpdate(product, update);
+                    } catch (IllegalArgumentException e) {
+                        // Detaching drops the changes already copied onto the product, so nothing of the entry is saved
+                        entityManager.detach(product);
+                        results[index] = new ItemResult(index, update.getId(), false, e.getMessage());
+                        continue;
+                    }
+                    applied.add(index);
+                    eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, product.getId(), product.getProductCode(),
+                            previousProductCode.equals(product.getProductCode()) ? null : previousProductCode));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            for (Integer index : applied) {
+                results[index] = new ItemResult(index, batch.get(index).getId(), true, null);
+            }
+        } catch (RuntimeException e) {
+            // The whole chunk was rolled back, none of its entries were saved.
+            // Entries without a result yet were applied or not reached, e.g. when loading the chunk failed
+            for (Integer index : chunk) {
+                if (results[index] == null) {
+                    results[index] = new ItemResult(index, batch.get(index).getId(), false, "Chunk rolled back: " + e.getMessage());
+                }
+            }
+        }
+        chunk.clear();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.DigitalStore.Service;
+
+/**
+ * Published by the service layer inside the transaction that changes a product.
+ * In-memory indexes and caches listen for it after commit to stay in sync with the database.
+ *
+ * @param type                What happened to the product.
+ * @param productId           The id of the product.
+ * @param productCode         The product code after the change, for a deleted product the code it had.
+ * @param previousProductCode The product code before an update that changed it, otherwise null.
+ */
+public record ProductChangedEvent(
+        Type type,
+        Long productId,
+        String productCode,
+        String previousProductCode
+) {
+    public ProductChangedEvent(Type type, Long productId, String productCode) {
+        this(type, productId, productCode, null);
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK_CHANGED // only the stock of one or more options changed
+    }
+}
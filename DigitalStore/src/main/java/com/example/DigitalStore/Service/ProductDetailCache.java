@@ -0,0 +1,94 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.config.ReadWriteRoutingDataSource;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded cache of the option lists served by GET /products/{productCode}, keyed by product code.
+ * Entries are evicted by size and age, and invalidated after every committed change of their product,
+ * including stock changes, so a read after a committed write never sees the old options.
+ * Invalidation is per instance: a change committed by another instance is only seen here once the entry
+ * expires, after product-cache.ttl at most. Lower the TTL when running several instances that must agree sooner.
+ * Hits, misses and evictions are published as cache metrics named "productDetails". Reads that joined a load
+ * still in flight are also counted in reads.coalescing with the query tag "product-options", like the
+ * other coalesced reads, see {@link RequestCoalescer}.
+ */
+@Service
+public class ProductDetailCache {
+
+    private final ProductService productService;
+    private final AsyncCache<String, List<ProductOptionsGetDTO>> cache;
+    private final Counter loaded;
+    private final Counter coalesced;
+
+    public ProductDetailCache(ProductService productService, MeterRegistry meterRegistry,
+                              @Value("${product-cache.maximum-size:10000}") long maximumSize,
+                              @Value("${product-cache.ttl:PT10M}") Duration ttl) {
+        this.productService = productService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productDetails");
+        this.loaded = RequestCoalescer.counter("product-options", "loaded", meterRegistry);
+        this.coalesced = RequestCoalescer.counter("product-options", "coalesced", meterRegistry);
+    }
+
+    /**
+     * Returns the options of a product, loading them from the database when they are not cached.
+     * Concurrent misses for the same product share one load.
+     *
+     * @param productCode The product code.
+     * @return The options of the product.
+     * @throws IllegalArgumentException if there is no product with this code, nothing is cached then
+     */
+    public List<ProductOptionsGetDTO> getProductOptions(String productCode) {
+        // Only an empty future is put into the cache while holding its lock, the query runs afterwards
+        // on the calling thread, so a virtual thread is never pinned while waiting on the database
+        CompletableFuture<List<ProductOptionsGetDTO>> load = new CompletableFuture<>();
+        CompletableFuture<List<ProductOptionsGetDTO>> options = cache.get(productCode, (key, executor) -> load);
+        if (options == load) {
+            loaded.increment();
+            try {
+                // Read from the primary, a lagging replica would put the old options back after an invalidation
+                load.complete(ReadWriteRoutingDataSource.onPrimary(() -> productService.getProductOptions(productCode)));
+            } catch (IllegalArgumentException e) {
+                load.complete(null); // a null value is not kept in the cache
+            } catch (RuntimeException | Error e) {
+                // Also on an Error, otherwise the callers waiting for this load would wait forever
+                load.completeExceptionally(e);
+                throw e;
+            }
+        } else if (!options.isDone()) {
+            coalesced.increment();
+        }
+        List<ProductOptionsGetDTO> result = options.join();
+        if (result == null) {
+            throw new IllegalArgumentException("Product with code " + productCode + " not found.");
+        }
+        return result;
+    }
+
+    // Invalidation removes a load that is still running as well, its result only reaches the
+    // callers already waiting for it and is never kept after the commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.synchronous().invalidate(event.productCode());
+        if (event.previousProductCode() != null) {
+            cache.synchronous().invalidate(event.previousProductCode());
+        }
+    }
+}
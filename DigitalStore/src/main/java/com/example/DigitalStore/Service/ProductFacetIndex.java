@@ -0,0 +1,361 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.FacetResultDTO;
+import com.example.DigitalStore.DTO.ProductFacetRowDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Bitset index for faceted filtering on brand, category, size, color and stock.
+ * Brands and categories have a bitset with one bit per product id. Sizes, colors and stock have a bitset
+ * with one bit per option, so they are matched per option: a product matches size M, color Red and in stock
+ * only when one of its options is M, Red and in stock. The matching options are then mapped to their products.
+ * A combined filter is a few AND/OR operations and brand and category counts are cardinalities of intersections.
+ * Size and color counts are collected in one pass over the options of the matching products, so their cost does not
+ * grow with the number of sizes and colors.
+ */
+@Service
+public class ProductFacetIndex {
+
+    private static final String BRAND = "brand";
+    private static final String CATEGORY = "category";
+    private static final String SIZE = "size";
+    private static final String COLOR = "color";
+    private static final List<String> DIMENSIONS = List.of(BRAND, CATEGORY, SIZE, COLOR);
+    // Matched per option instead of per product
+    private static final Set<String> OPTION_DIMENSIONS = Set.of(SIZE, COLOR);
+
+    private final ProductsRepository productsRepository;
+    private final ReferenceDataRegistry referenceData;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+
+    public ProductFacetIndex(ProductsRepository productsRepository, ReferenceDataRegistry referenceData) {
+        this.productsRepository = productsRepository;
+        this.referenceData = referenceData;
+    }
+
+    /**
+     * Builds the index from all products in the database and replaces the current one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        Index newIndex = new Index();
+        try (Stream<ProductFacetRowDTO> rows = productsRepository.streamFacetRows()) {
+            forEachProduct(rows, newIndex::add);
+        }
+
+        lock.writeLock().lock();
+        try {
+            index = newIndex;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Collected until the commit, then the changed products are reloaded with one query
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        ChangedProducts.collect(this, event, this::apply);
+    }
+
+    private void apply(ChangedProducts changes) {
+        List<ProductFacetRowDTO> rows = changes.idsToLoad().isEmpty() ? List.of() : productsRepository.findFacetRows(changes.idsToLoad());
+
+        lock.writeLock().lock();
+        try {
+            changes.ids().forEach(index::remove);
+            forEachProduct(rows.stream(), index::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rows arrive ordered by product, so one product is collected at a time
+    private static void forEachProduct(Stream<ProductFacetRowDTO> rows, Consumer<ProductFacets> action) {
+        List<ProductFacetRowDTO> productRows = new ArrayList<>();
+        rows.forEach(row -> {
+            if (!productRows.isEmpty() && !productRows.get(0).productId().equals(row.productId())) {
+                action.accept(ProductFacets.of(productRows));
+                productRows.clear();
+            }
+            productRows.add(row);
+        });
+        if (!productRows.isEmpty()) {
+            action.accept(ProductFacets.of(productRows));
+        }
+    }
+
+    /**
+     * Filters products by the selected values and counts the matches for every other value.
+     * Values selected within one attribute are combined with OR, attributes are combined with AND.
+     * A category also selects all its subcategories.
+     *
+     * @param brandIds    Selected brands, empty for any brand.
+     * @param categoryIds Selected categories, empty for any category.
+     * @param sizeIds     Selected sizes, empty for any size.
+     * @param colorIds    Selected colors, empty for any color.
+     * @param inStock     Only products with an option in stock that also has a selected size and color.
+     * @param limit       The maximum number of products to return.
+     * @return The matching products, the total number of matches and the facet counts.
+     */
+    public FacetResultDTO filter(Set<Long> brandIds, Set<Long> categoryIds, Set<Long> sizeIds, Set<Long> colorIds, boolean inStock, int limit) {
+        Set<Long> expandedCategoryIds = new HashSet<>();
+        categoryIds.forEach(categoryId -> expandedCategoryIds.addAll(referenceData.getCategorySubtree(categoryId)));
+        Map<String, Set<Long>> selected = Map.of(BRAND, brandIds, CATEGORY, expandedCategoryIds, SIZE, sizeIds, COLOR, colorIds);
+
+        List<Long> pageIds = new ArrayList<>();
+        Map<String, Map<Long, Integer>> facets = new LinkedHashMap<>();
+        int total;
+        int inStockCount;
+
+        lock.readLock().lock();
+        try {
+            Map<String, BitSet> filters = new HashMap<>();
+            selected.forEach((dimension, values) -> {
+                if (!values.isEmpty()) {
+                    filters.put(dimension, index.union(dimension, values));
+                }
+            });
+
+            BitSet matches = index.matching(filters, inStock);
+            total = matches.cardinality();
+            for (int id = matches.nextSetBit(0); id >= 0 && pageIds.size() < limit; id = matches.nextSetBit(id + 1)) {
+                pageIds.add((long) id);
+            }
+
+            BitSet productBase = index.productFilter(filters);
+            for (String dimension : DIMENSIONS) {
+                Map<String, BitSet> otherFilters = new HashMap<>(filters);
+                otherFilters.remove(dimension);
+                Map<Long, Integer> counts;
+                if (OPTION_DIMENSIONS.contains(dimension)) {
+                    // Counted with each value as the selection, a value's options must meet the other option filters too
+                    counts = index.optionValueCounts(dimension, productBase, index.optionFilter(otherFilters, inStock));
+                } else {
+                    BitSet base = index.matching(otherFilters, inStock);
+                    counts = new TreeMap<>();
+                    index.values(dimension).forEach((value, bits) -> {
+                        int count = intersectionSize(base, bits);
+                        if (count > 0) {
+                            counts.put(value, count);
+                        }
+                    });
+                }
+                facets.put(dimension, counts);
+            }
+            inStockCount = inStock ? total : index.matching(filters, true).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ProductsDTO> products = pageIds.isEmpty() ? List.of() : productsRepository.findByIds(pageIds);
+        return new FacetResultDTO(total, products, facets, inStockCount);
+    }
+
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet intersection = (BitSet) a.clone();
+        intersection.and(b);
+        return intersection.cardinality();
+    }
+
+    private record OptionFacets(Long sizeId, Long colorId, boolean inStock) {}
+
+    private record ProductFacets(int productId, Long brandId, Long categoryId, List<OptionFacets> options) {
+
+        static ProductFacets of(List<ProductFacetRowDTO> rows) {
+            ProductFacetRowDTO first = rows.get(0);
+            List<OptionFacets> options = new ArrayList<>(rows.size());
+            for (ProductFacetRowDTO row : rows) {
+                // A product without options has one row with null size, color and stock
+                if (row.sizeId() != null || row.colorId() != null || row.stockQuantity() != null) {
+                    options.add(new OptionFacets(row.sizeId(), row.colorId(), row.stockQuantity() != null && row.stockQuantity() > 0));
+                }
+            }
+            return new ProductFacets(Math.toIntExact(first.productId()), first.brandId(), first.categoryId(), options);
+        }
+    }
+
+    // Not thread-safe, guarded by the lock of the enclosing index.
+    // Options get a slot each, brand and category bitsets are indexed by product id, size and color bitsets by slot.
+    private static class Index {
+        private final Map<String, Map<Long, BitSet>> dimensions = Map.of(
+                BRAND, new HashMap<>(), CATEGORY, new HashMap<>(), SIZE, new HashMap<>(), COLOR, new HashMap<>());
+        private final BitSet all = new BitSet();
+        private final BitSet usedSlots = new BitSet();
+        private final BitSet inStockSlots = new BitSet();
+        private int[] slotProducts = new int[1024];
+        // No free slot below this one, so adding during a rebuild does not search from 0 every time
+        private int firstFreeSlot;
+        private final Map<Integer, ProductFacets> products = new HashMap<>();
+        private final Map<Integer, int[]> productSlots = new HashMap<>();
+
+        void add(ProductFacets facets) {
+            int bit = facets.productId();
+            all.set(bit);
+            set(BRAND, facets.brandId(), bit);
+            set(CATEGORY, facets.categoryId(), bit);
+            int[] slots = new int[facets.options().size()];
+            for (int i = 0; i < slots.length; i++) {
+                OptionFacets option = facets.options().get(i);
+                int slot = usedSlots.nextClearBit(firstFreeSlot);
+                usedSlots.set(slot);
+                firstFreeSlot = slot + 1;
+                if (slot >= slotProducts.length) {
+                    slotProducts = Arrays.copyOf(slotProducts, Math.max(slot + 1, slotProducts.length * 2));
+                }
+                slotProducts[slot] = bit;
+                inStockSlots.set(slot, option.inStock());
+                set(SIZE, option.sizeId(), slot);
+                set(COLOR, option.colorId(), slot);
+                slots[i] = slot;
+            }
+            products.put(bit, facets);
+            productSlots.put(bit, slots);
+        }
+
+        void remove(Long productId) {
+            ProductFacets facets = products.remove(Math.toIntExact(productId));
+            if (facets == null) {
+                return;
+            }
+            int bit = facets.productId();
+            all.clear(bit);
+            clear(BRAND, facets.brandId(), bit);
+            clear(CATEGORY, facets.categoryId(), bit);
+            int[] slots = productSlots.remove(bit);
+            for (int i = 0; i < slots.length; i++) {
+                OptionFacets option = facets.options().get(i);
+                usedSlots.clear(slots[i]);
+                firstFreeSlot = Math.min(firstFreeSlot, slots[i]);
+                inStockSlots.clear(slots[i]);
+                clear(SIZE, option.sizeId(), slots[i]);
+                clear(COLOR, option.colorId(), slots[i]);
+            }
+        }
+
+        Map<Long, BitSet> values(String dimension) {
+            return dimensions.get(dimension);
+        }
+
+        BitSet union(String dimension, Set<Long> values) {
+            BitSet union = new BitSet();
+            values.forEach(value -> {
+                BitSet bits = dimensions.get(dimension).get(value);
+                if (bits != null) {
+                    union.or(bits);
+                }
+            });
+            return union;
+        }
+
+        // All products matching the filters, the size and color filters and the stock filter must hold for the same option
+        BitSet matching(Map<String, BitSet> filters, boolean onlyInStock) {
+            BitSet result = productFilter(filters);
+            BitSet options = optionFilter(filters, onlyInStock);
+            if (options != null) {
+                result.and(productsOf(options));
+            }
+            return result;
+        }
+
+        // The products matching the brand and category filters
+        BitSet productFilter(Map<String, BitSet> filters) {
+            BitSet result = (BitSet) all.clone();
+            filters.forEach((dimension, bits) -> {
+                if (!OPTION_DIMENSIONS.contains(dimension)) {
+                    result.and(bits);
+                }
+            });
+            return result;
+        }
+
+        // The option slots matching the size, color and stock filters, null when no option is filtered out
+        BitSet optionFilter(Map<String, BitSet> filters, boolean onlyInStock) {
+            BitSet options = null;
+            for (Map.Entry<String, BitSet> filter : filters.entrySet()) {
+                if (OPTION_DIMENSIONS.contains(filter.getKey())) {
+                    if (options == null) {
+                        options = (BitSet) filter.getValue().clone();
+                    } else {
+                        options.and(filter.getValue());
+                    }
+                }
+            }
+            if (onlyInStock) {
+                if (options == null) {
+                    options = (BitSet) inStockSlots.clone();
+                } else {
+                    options.and(inStockSlots);
+                }
+            }
+            return options;
+        }
+
+        // Products per size or color value among the products of the product filter, counting only their options in
+        // the option filter. One pass over the candidate products and their options, whatever the number of values
+        Map<Long, Integer> optionValueCounts(String dimension, BitSet productFilter, BitSet optionFilter) {
+            BitSet candidates = productFilter;
+            if (optionFilter != null) {
+                candidates = productsOf(optionFilter);
+                candidates.and(productFilter);
+            }
+            Map<Long, Integer> counts = new TreeMap<>();
+            Set<Long> productValues = new HashSet<>();
+            for (int productId = candidates.nextSetBit(0); productId >= 0; productId = candidates.nextSetBit(productId + 1)) {
+                List<OptionFacets> options = products.get(productId).options();
+                int[] slots = productSlots.get(productId);
+                productValues.clear();
+                for (int i = 0; i < slots.length; i++) {
+                    if (optionFilter == null || optionFilter.get(slots[i])) {
+                        Long value = SIZE.equals(dimension) ? options.get(i).sizeId() : options.get(i).colorId();
+                        if (value != null) {
+                            productValues.add(value);
+                        }
+                    }
+                }
+                // A product with several options of a value counts once for it
+                productValues.forEach(value -> counts.merge(value, 1, Integer::sum));
+            }
+            return counts;
+        }
+
+        private BitSet productsOf(BitSet slots) {
+            BitSet productIds = new BitSet();
+            for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                productIds.set(slotProducts[slot]);
+            }
+            return productIds;
+        }
+
+        private void set(String dimension, Long value, int bit) {
+            if (value != null) {
+                dimensions.get(dimension).computeIfAbsent(value, v -> new BitSet()).set(bit);
+            }
+        }
+
+        private void clear(String dimension, Long value, int bit) {
+            BitSet bits = value == null ? null : dimensions.get(dimension).get(value);
+            if (bits != null) {
+                bits.clear(bit);
+                if (bits.isEmpty()) {
+                    dimensions.get(dimension).remove(value);
+                }
+            }
+        }
+    }
+}
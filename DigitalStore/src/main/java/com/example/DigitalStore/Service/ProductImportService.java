@@ -0,0 +1,293 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductImportReportDTO;
+import com.example.DigitalStore.DTO.ProductImportReportDTO.RowError;
+import com.example.DigitalStore.DTO.ProductOptionsDTO;
+import com.example.DigitalStore.DTO.ProductsUpdateDTO;
+import com.example.DigitalStore.model.Products;
+import com.example.DigitalStore.repository.ProductsRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Imports products in bulk from NDJSON or CSV.
+ * The input is read line by line and saved in chunks, each chunk in its own transaction,
+ * so memory use depends on the chunk size and not on the size of the file.
+ */
+@Service
+public class ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final List<String> CSV_COLUMNS = List.of("productCode", "productName", "description", "price", "categoryId", "brandId", "options");
+
+    private final ProductService productService;
+    private final ProductsRepository productsRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public ProductImportService(ProductService productService, ProductsRepository productsRepository, EntityManager entityManager,
+                                PlatformTransactionManager transactionManager, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                                @Value("${product-import.chunk-size:500}") int chunkSize) {
+        this.productService = productService;
+        this.productsRepository = productsRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports one product per line, each line a ProductsUpdateDTO as JSON.
+     *
+     * @param reader The NDJSON input.
+     * @return The number of imported and failed rows and the errors per row.
+     */
+    public ProductImportReportDTO importNdjson(BufferedReader reader) throws IOException {
+        Report report = new Report();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                ProductsUpdateDTO product = objectMapper.readValue(line, ProductsUpdateDTO.class);
+                if (product != null) {
+                    chunk.add(new Row(lineNumber, product));
+                } else {
+                    report.fail(lineNumber, null, "Line must be a JSON object.");
+                }
+            } catch (JsonProcessingException e) {
+                report.fail(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk, report);
+            }
+        }
+        saveChunk(chunk, report);
+        return report.toDTO();
+    }
+
+    /**
+     * Imports one product per line from CSV with the header
+     * productCode,productName,description,price,categoryId,brandId,options.
+     * Options are written as sizeId:colorId:stockQuantity separated by "|". Values may be quoted,
+     * but a value cannot span several lines.
+     *
+     * @param reader The CSV input.
+     * @return The number of imported and failed rows and the errors per row.
+     */
+    public ProductImportReportDTO importCsv(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null || !parseCsvLine(header).stream().map(String::trim).toList().equals(CSV_COLUMNS)) {
+            throw new IllegalArgumentException("CSV header must be: " + String.join(",", CSV_COLUMNS));
+        }
+
+        Report report = new Report();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        String line;
+        long lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(new Row(lineNumber, parseCsvProduct(parseCsvLine(line))));
+            } catch (IllegalArgumentException e) {
+                report.fail(lineNumber, null, e.getMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk, report);
+            }
+        }
+        saveChunk(chunk, report);
+        return report.toDTO();
+    }
+
+    // Validates and saves one chunk in a single transaction, then clears the chunk and the persistence context.
+    // A chunk the database rejects, e.g. a product code another import saved after the check, is saved again row by row
+    // so only the offending rows fail.
+    private void saveChunk(List<Row> chunk, Report report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Row> staged = new ArrayList<>(chunk.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Checked in the chunk's transaction, so it sees the codes committed up to the insert
+                Set<String> existingCodes = productsRepository.findExistingProductCodes(
+                        chunk.stream().map(row -> row.product().getProductCode()).filter(Objects::nonNull).toList());
+                Set<String> chunkCodes = new HashSet<>();
+                List<Products> products = new ArrayList<>(chunk.size());
+                for (Row row : chunk) {
+                    String productCode = row.product().getProductCode();
+                    if (productCode == null) {
+                        report.fail(row.line(), null, "Product code must be provided.");
+                        continue;
+                    }
+                    if (existingCodes.contains(productCode) || !chunkCodes.add(productCode)) {
+                        report.fail(row.line(), productCode, "Product code already exists.");
+                        continue;
+                    }
+                    try {
+                        products.add(productService.buildProduct(row.product()));
+                        staged.add(row);
+                    } catch (IllegalArgumentException e) {
+                        report.fail(row.line(), productCode, e.getMessage());
+                    }
+                }
+                saveProducts(products);
+            });
+            report.imported += staged.size();
+        } catch (DataIntegrityViolationException e) {
+            for (Row row : staged) {
+                saveRow(row, report);
+            }
+        } catch (RuntimeException e) {
+            // The whole chunk was rolled back, none of its rows were saved
+            for (Row row : staged) {
+                report.fail(row.line(), row.product().getProductCode(), "Chunk rolled back: " + e.getMessage());
+            }
+        }
+        chunk.clear();
+    }
+
+    // Saves one row of a rejected chunk in its own transaction, the row was already validated with its chunk
+    private void saveRow(Row row, Report report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveProducts(List.of(productService.buildProduct(row.product()))));
+            report.imported++;
+        } catch (DataIntegrityViolationException e) {
+            report.fail(row.line(), row.product().getProductCode(), "Rejected by the database: " + e.getMostSpecificCause().getMessage());
+        } catch (RuntimeException e) {
+            report.fail(row.line(), row.product().getProductCode(), e.getMessage());
+        }
+    }
+
+    private void saveProducts(List<Products> products) {
+        productsRepository.saveAll(products);
+        for (Products product : products) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, product.getId(), product.getProductCode()));
+        }
+        // Flushed through the repository, so a rejected insert surfaces as a DataIntegrityViolationException
+        productsRepository.flush();
+        entityManager.clear();
+    }
+
+    private ProductsUpdateDTO parseCsvProduct(List<String> values) {
+        if (values.size() != CSV_COLUMNS.size()) {
+            throw new IllegalArgumentException("Expected " + CSV_COLUMNS.size() + " columns but found " + values.size() + ".");
+        }
+        ProductsUpdateDTO product = new ProductsUpdateDTO();
+        product.setProductCode(emptyToNull(values.get(0)));
+        product.setProductName(emptyToNull(values.get(1)));
+        product.setDescription(emptyToNull(values.get(2)));
+        product.setPrice(parseNumber(values.get(3), "price", Double::valueOf));
+        product.setCategoryId(parseNumber(values.get(4), "categoryId", Long::valueOf));
+        product.setBrandId(parseNumber(values.get(5), "brandId", Long::valueOf));
+
+        List<ProductOptionsDTO> options = new ArrayList<>();
+        String optionsValue = values.get(6).trim();
+        if (!optionsValue.isEmpty()) {
+            for (String option : optionsValue.split("\\|")) {
+                String[] parts = option.split(":");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Option must be sizeId:colorId:stockQuantity but was " + option + ".");
+                }
+                ProductOptionsDTO optionDTO = new ProductOptionsDTO();
+                optionDTO.setSizeId(parseNumber(parts[0], "sizeId", Long::valueOf));
+                optionDTO.setColorId(parseNumber(parts[1], "colorId", Long::valueOf));
+                optionDTO.setStockQuantity(parseNumber(parts[2], "stockQuantity", Integer::valueOf));
+                options.add(optionDTO);
+            }
+        }
+        product.setProductOptions(options);
+        return product;
+    }
+
+    // Splits one CSV line, handling quoted values and "" as an escaped quote
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value.");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static <T> T parseNumber(String value, String column, Function<String, T> parser) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        try {
+            return parser.apply(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value + ".");
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private record Row(long line, ProductsUpdateDTO product) {}
+
+    private static class Report {
+        private long imported;
+        private long failed;
+        private final List<RowError> errors = new ArrayList<>();
+
+        void fail(long line, String productCode, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, productCode, error));
+            }
+        }
+
+        ProductImportReportDTO toDTO() {
+            return new ProductImportReportDTO(imported, failed, List.copyOf(errors), failed > errors.size());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.DTO.ProductsPageDTO;
+import com.example.DigitalStore.config.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Listing pages and price filters for the controller, where identical concurrent calls share one query.
+ * The load runs outside the caller's transaction, so joined callers never hold a database connection.
+ * After a committed product change, calls start new queries instead of joining ones that may have read
+ * the old data, so a read after a committed write always sees it.
+ * Calls pinned to the primary, e.g. right after the client's own write, only join loads that read the primary too,
+ * the replica may not have the write yet.
+ */
+@Service
+public class ProductReadCoalescer {
+
+    private final ProductService productService;
+    private final RequestCoalescer<PageKey, ProductsPageDTO> pages;
+    private final RequestCoalescer<PriceRangeKey, List<ProductsDTO>> priceFilters;
+
+    public ProductReadCoalescer(ProductService productService, MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.pages = new RequestCoalescer<>("products-page", meterRegistry);
+        this.priceFilters = new RequestCoalescer<>("price-filter", meterRegistry);
+    }
+
+    /**
+     * See {@link ProductService#getProductsPage(String, int)}.
+     */
+    public ProductsPageDTO getProductsPage(String cursor, int limit) {
+        return pages.get(new PageKey(cursor, limit, ReadWriteRoutingDataSource.isPinnedToPrimary()), () -> productService.getProductsPage(cursor, limit));
+    }
+
+    /**
+     * See {@link ProductService#filterProductsbyPrice(Double, Double, String)}.
+     * The arguments are validated before joining, and equal ranges share a query.
+     */
+    public List<ProductsDTO> filterProductsbyPrice(Double minPrice, Double maxPrice, String sortDirection) throws NegativePriceException {
+        ProductService.validatePriceRange(minPrice, maxPrice);
+        Sort.Direction direction = ProductService.parseSortDirection(sortDirection);
+        return priceFilters.get(new PriceRangeKey(minPrice, maxPrice, direction, ReadWriteRoutingDataSource.isPinnedToPrimary()), () -> {
+            try {
+                return List.copyOf(productService.filterProductsbyPrice(minPrice, maxPrice, direction.name()));
+            } catch (NegativePriceException e) {
+                throw new IllegalStateException(e); // validated above
+            }
+        });
+    }
+
+    // Stock is neither on a page nor in the price filter
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.STOCK_CHANGED) {
+            return;
+        }
+        pages.forgetAll();
+        priceFilters.forgetAll();
+    }
+
+    private record PageKey(String cursor, int limit, boolean onPrimary) {}
+
+    // A null bound is a missing bound
+    private record PriceRangeKey(Double minPrice, Double maxPrice, Sort.Direction direction, boolean onPrimary) {}
+}
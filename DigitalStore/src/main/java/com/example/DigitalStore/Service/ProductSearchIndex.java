@@ -0,0 +1,373 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductSearchDocumentDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over product code, name, description and brand name.
+ * Built from the database at startup and updated after every committed product change.
+ * Terms are kept sorted so the last word of a query, and autocomplete, can match by prefix.
+ * The postings of a term are primitive arrays, so a million products with about ten terms each fit in a few hundred MB.
+ */
+@Service
+public class ProductSearchIndex {
+
+    // A match in the code or name says more about the product than a match in the description
+    private static final float CODE_WEIGHT = 4f;
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int MAX_AUTOCOMPLETE_SCAN = 1000;
+
+    private final ProductsRepository productsRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<String, Postings> postings = new TreeMap<>();
+    private Map<Long, IndexedProduct> products = new HashMap<>();
+
+    public ProductSearchIndex(ProductsRepository productsRepository) {
+        this.productsRepository = productsRepository;
+    }
+
+    /**
+     * Builds the index from all products in the database and replaces the current one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        TreeMap<String, Postings> newPostings = new TreeMap<>();
+        Map<Long, IndexedProduct> newProducts = new HashMap<>();
+        try (Stream<ProductSearchDocumentDTO> documents = productsRepository.streamSearchDocuments()) {
+            documents.forEach(document -> add(document, newPostings, newProducts));
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            products = newProducts;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Collected until the commit, then the changed products are reloaded with one query
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.STOCK_CHANGED) {
+            return; // nothing searchable changed
+        }
+        ChangedProducts.collect(this, event, this::apply);
+    }
+
+    private void apply(ChangedProducts changes) {
+        List<ProductSearchDocumentDTO> documents = changes.idsToLoad().isEmpty()
+                ? List.of()
+                : productsRepository.findSearchDocuments(changes.idsToLoad());
+
+        lock.writeLock().lock();
+        try {
+            changes.ids().forEach(this::remove);
+            documents.forEach(document -> add(document, postings, products));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the products that contain every word of the query, best matches first.
+     * The last word also matches as a prefix, so results follow the user while typing.
+     *
+     * @param query The words to search for.
+     * @param limit The maximum number of products to return.
+     * @return The matching products ordered by relevance.
+     */
+    public List<ProductsDTO> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<List<Match>> wordMatches = new ArrayList<>(words.size());
+            for (int i = 0; i < words.size(); i++) {
+                List<Match> matches = i == words.size() - 1 ? prefixMatches(words.get(i)) : termMatches(words.get(i));
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+                wordMatches.add(matches);
+            }
+
+            // Only the products of the rarest word can match all words, the other words are looked up for those
+            List<Match> rarest = wordMatches.stream().min(Comparator.comparingLong(ProductSearchIndex::postingsCount)).orElseThrow();
+            PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score).thenComparing(Comparator.comparingLong(Hit::productId).reversed()));
+            for (int m = 0; m < rarest.size(); m++) {
+                List<Match> earlier = rarest.subList(0, m);
+                rarest.get(m).postings().forEach((productId, weight) -> {
+                    for (Match match : earlier) {
+                        if (match.postings().weight(productId) > 0) {
+                            return; // already scored
+                        }
+                    }
+                    float score = score(productId, wordMatches);
+                    if (score > 0) {
+                        best.offer(new Hit(productId, score));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                });
+            }
+
+            List<ProductsDTO> results = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                results.add(products.get(best.poll().productId()).product());
+            }
+            Collections.reverse(results);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Suggests indexed words starting with the prefix, the words found in most products first.
+     *
+     * @param prefix The beginning of the word.
+     * @param limit  The maximum number of suggestions.
+     * @return The suggested words.
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        List<String> words = tokenize(prefix);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        String start = words.get(words.size() - 1);
+
+        lock.readLock().lock();
+        try {
+            return postings.subMap(start, true, start + Character.MAX_VALUE, false).entrySet().stream()
+                    .limit(MAX_AUTOCOMPLETE_SCAN)
+                    .sorted(Comparator.comparing((Map.Entry<String, Postings> entry) -> entry.getValue().size()).reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Match> termMatches(String term) {
+        Postings termPostings = postings.get(term);
+        return termPostings == null ? List.of() : List.of(new Match(termPostings, idf(termPostings)));
+    }
+
+    private List<Match> prefixMatches(String prefix) {
+        List<Match> matches = new ArrayList<>(termMatches(prefix));
+        postings.subMap(prefix, false, prefix + Character.MAX_VALUE, false).values().stream()
+                .limit(MAX_PREFIX_EXPANSIONS)
+                .forEach(termPostings -> matches.add(new Match(termPostings, idf(termPostings) * PREFIX_MATCH_FACTOR)));
+        return matches;
+    }
+
+    private float idf(Postings termPostings) {
+        return (float) Math.log(1 + (double) products.size() / termPostings.size());
+    }
+
+    // The sum of the best match of every word, 0 when a word does not match the product
+    private static float score(long productId, List<List<Match>> wordMatches) {
+        float score = 0;
+        for (List<Match> matches : wordMatches) {
+            float wordScore = 0;
+            for (Match match : matches) {
+                wordScore = Math.max(wordScore, match.postings().weight(productId) * match.factor());
+            }
+            if (wordScore == 0) {
+                return 0;
+            }
+            score += wordScore;
+        }
+        return score;
+    }
+
+    private static long postingsCount(List<Match> matches) {
+        return matches.stream().mapToLong(match -> match.postings().size()).sum();
+    }
+
+    // Caller holds the write lock, or owns the maps during a rebuild
+    private static void add(ProductSearchDocumentDTO document, TreeMap<String, Postings> postings, Map<Long, IndexedProduct> products) {
+        Map<String, Float> weights = new HashMap<>();
+        if (document.productCode() != null) {
+            weights.merge(document.productCode().toLowerCase(Locale.ROOT), CODE_WEIGHT, Float::sum);
+            tokenize(document.productCode()).forEach(term -> weights.merge(term, CODE_WEIGHT, Math::max));
+        }
+        tokenize(document.productName()).forEach(term -> weights.merge(term, NAME_WEIGHT, Float::sum));
+        tokenize(document.brandName()).forEach(term -> weights.merge(term, BRAND_WEIGHT, Float::sum));
+        tokenize(document.description()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Float::sum));
+
+        Postings[] termPostings = new Postings[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> weight : weights.entrySet()) {
+            termPostings[i] = postings.computeIfAbsent(weight.getKey(), Postings::new);
+            termPostings[i++].put(document.id(), weight.getValue());
+        }
+        ProductsDTO product = new ProductsDTO(document.id(), document.productCode(), document.productName(), document.description(), document.price());
+        products.put(document.id(), new IndexedProduct(product, termPostings));
+    }
+
+    // Caller holds the write lock
+    private void remove(Long productId) {
+        IndexedProduct indexed = products.remove(productId);
+        if (indexed == null) {
+            return;
+        }
+        for (Postings termPostings : indexed.postings()) {
+            termPostings.remove(productId);
+            if (termPostings.size() == 0) {
+                postings.remove(termPostings.term());
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    // The postings of the product's terms, so removing it needs no term lookups
+    private record IndexedProduct(ProductsDTO product, Postings[] postings) {}
+
+    // Postings of one word of the query, with the idf and the prefix factor applied to their weights
+    private record Match(Postings postings, float factor) {}
+
+    private record Hit(long productId, float score) {}
+
+    private interface PostingVisitor {
+        void visit(long productId, float weight);
+    }
+
+    // Not thread-safe, guarded by the lock of the enclosing index.
+    // Product id to weight in open addressing arrays with linear probing: about 16 bytes per product instead of
+    // a hash map node with a boxed id and weight. Weights are always positive, 0 stands for no posting.
+    private static final class Postings {
+        private static final long FREE = Long.MIN_VALUE;
+
+        private final String term;
+        private long[] productIds;
+        private float[] weights;
+        private int size;
+
+        Postings(String term) {
+            this.term = term;
+            // Most terms, e.g. product codes, belong to a single product
+            productIds = new long[2];
+            weights = new float[2];
+            Arrays.fill(productIds, FREE);
+        }
+
+        String term() {
+            return term;
+        }
+
+        int size() {
+            return size;
+        }
+
+        float weight(long productId) {
+            int mask = productIds.length - 1;
+            for (int slot = slot(productId, mask); productIds[slot] != FREE; slot = (slot + 1) & mask) {
+                if (productIds[slot] == productId) {
+                    return weights[slot];
+                }
+            }
+            return 0;
+        }
+
+        void put(long productId, float weight) {
+            // At most three quarters full, so probing stays short and always finds a free slot
+            if ((size + 1) * 4 > productIds.length * 3) {
+                resize(productIds.length * 2);
+            }
+            int mask = productIds.length - 1;
+            int slot = slot(productId, mask);
+            while (productIds[slot] != FREE && productIds[slot] != productId) {
+                slot = (slot + 1) & mask;
+            }
+            if (productIds[slot] == FREE) {
+                size++;
+            }
+            productIds[slot] = productId;
+            weights[slot] = weight;
+        }
+
+        void remove(long productId) {
+            int mask = productIds.length - 1;
+            int slot = slot(productId, mask);
+            while (productIds[slot] != productId) {
+                if (productIds[slot] == FREE) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            size--;
+            // Moves later entries of the probe sequence into the gap, so lookups need no tombstones
+            int gap = slot;
+            for (int next = (gap + 1) & mask; productIds[next] != FREE; next = (next + 1) & mask) {
+                int home = slot(productIds[next], mask);
+                boolean homeInGapToNext = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+                if (!homeInGapToNext) {
+                    productIds[gap] = productIds[next];
+                    weights[gap] = weights[next];
+                    gap = next;
+                }
+            }
+            productIds[gap] = FREE;
+        }
+
+        void forEach(PostingVisitor visitor) {
+            for (int slot = 0; slot < productIds.length; slot++) {
+                if (productIds[slot] != FREE) {
+                    visitor.visit(productIds[slot], weights[slot]);
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldProductIds = productIds;
+            float[] oldWeights = weights;
+            productIds = new long[capacity];
+            weights = new float[capacity];
+            Arrays.fill(productIds, FREE);
+            size = 0;
+            for (int slot = 0; slot < oldProductIds.length; slot++) {
+                if (oldProductIds[slot] != FREE) {
+                    put(oldProductIds[slot], oldWeights[slot]);
+                }
+            }
+        }
+
+        private static int slot(long productId, int mask) {
+            // Sequential ids would fill runs of neighbouring slots, the multiplication spreads them
+            return (int) ((productId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
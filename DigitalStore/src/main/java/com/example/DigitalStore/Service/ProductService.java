@@ -3,33 +3,38 @@ package com.example.DigitalStore.Service;
 import com.example.DigitalStore.DTO.*;
 import com.example.DigitalStore.model.*;
 import com.example.DigitalStore.repository.*;
-import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 
 @Service
 public class ProductService {
 
     private final ProductsRepository productsRepository;
-    private final SizesRepository sizesRepository;
-    private final ColorsRepository colorsRepository;
-    private final BrandsRepository brandsRepository;
-    private final CategoriesRepository categoriesRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final ApplicationEventPublisher eventPublisher;
 
+    static final int MAX_PAGE_SIZE = 1000;
 
 
-    public ProductService(ProductsRepository productsRepository, SizesRepository sizesRepository, ColorsRepository colorsRepository, BrandsRepository brandsRepository, CategoriesRepository categoriesRepository) {
+
+    public ProductService(ProductsRepository productsRepository, ReferenceDataRegistry referenceData, ApplicationEventPublisher eventPublisher) {
         this.productsRepository = productsRepository;
-        this.sizesRepository = sizesRepository;
-        this.colorsRepository = colorsRepository;
-        this.brandsRepository = brandsRepository;
-        this.categoriesRepository = categoriesRepository;
+        this.referenceData = referenceData;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional(readOnly = true)
     public List<ProductsDTO> getAllProducts() {
         return productsRepository.findAll().stream()
                 .map(product -> new ProductsDTO(
@@ -42,64 +47,128 @@ public class ProductService {
                 .toList();
     }
 
+    /**
+     * Returns one page of products ordered by id, starting after the given cursor.
+     *
+     * @param cursor The nextCursor of the previous page, null for the first page.
+     * @param limit  The maximum number of products in the page.
+     * @return The page with the cursor of the following page.
+     */
+    @Transactional(readOnly = true)
+    public ProductsPageDTO getProductsPage(String cursor, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        long afterId = cursor == null ? 0L : decodeCursor(cursor);
+
+        // One extra row tells whether there is a next page without a count query
+        List<ProductsDTO> rows = productsRepository.findPageAfter(afterId, Limit.of(limit + 1));
+        if (rows.size() <= limit) {
+            return new ProductsPageDTO(rows, null);
+        }
+        List<ProductsDTO> page = rows.subList(0, limit);
+        return new ProductsPageDTO(List.copyOf(page), encodeCursor(page.get(limit - 1).id()));
+    }
+
+    /**
+     * Streams every product ordered by id to the consumer, reading from a forward-only cursor
+     * so memory use does not depend on the size of the table.
+     *
+     * @param consumer Receives the products one at a time.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<ProductsDTO> consumer) {
+        try (Stream<ProductsDTO> products = productsRepository.streamAllProducts()) {
+            products.forEach(consumer);
+        }
+    }
+
+    private static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    /**
+     * Returns the products of a category and of all its subcategories.
+     *
+     * @param categoryId The category at the root of the subtree.
+     * @return The products in the subtree.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductsDTO> getProductsByCategory(Long categoryId) {
+        return productsRepository.findByCategoryIds(referenceData.getCategorySubtree(categoryId));
+    }
+
+    @Transactional(readOnly = true)
     public List<ProductOptionsGetDTO> getProductOptions(String productCode) {
-        Products product = productsRepository.findByProductCode(productCode);
-        if (product == null) {
+        List<ProductOptionsGetDTO> rows = productsRepository.findOptionsByProductCode(productCode);
+        if (rows.isEmpty()) {
             throw new IllegalArgumentException("Product with code " + productCode + " not found.");
         }
 
-        return product.getProductOptions().stream()
-                .map(option -> {
-                    ProductOptionsGetDTO getDTO = new ProductOptionsGetDTO();
-                    getDTO.setId(option.getId());
-                    getDTO.setSize(option.getSize() != null ? option.getSize().getSize() : "Unknown Size"); // if something is wrong with data
-                    getDTO.setColor(option.getColor() != null ? option.getColor().getColor() : "Unknown Color");
-                    getDTO.setStockQuantity(option.getStockQuantity());
-                    return getDTO;
-                })
+        return rows.stream()
+                .filter(option -> option.getId() != null) // product exists but has no options
                 .toList();
     }
 
     /**
-     * Filters list of products based on a specified maximum price and
-     * Conversion of result to ProductsDTO objects
+     * Filters products within a price range and sorts them by price.
+     * The range is resolved by the database on the price index and mapped directly to ProductsDTO objects
      *
-     * @param maxPrice maximum price to filter products by, if null skips filtering
-     * @return A list of ProductsDTO objects below the maximum Price
-     * @throws NegativePriceException if maxPrice is equal to or less than zero
+     * @param minPrice minimum price to filter products by, if null there is no lower bound
+     * @param maxPrice maximum price to filter products by, if null there is no upper bound
+     * @param sortDirection "asc" or "desc", sort order on price
+     * @return A list of ProductsDTO objects within the price range
+     * @throws NegativePriceException if maxPrice is equal to or less than zero or minPrice is below zero
      */
-    public List<ProductsDTO> filterProductsbyPrice(Double maxPrice) throws NegativePriceException {
-        if (maxPrice == null) {
-            return productsRepository.findAll().stream()
-                    .map(product -> new ProductsDTO(
-                                    product.getId(),
-                                    product.getProductCode(),
-                                    product.getProductName(),
-                                    product.getDescription(),
-                                    product.getPrice()
-                            )
-                    ).toList();
-        }
-        if (maxPrice <= 0.0) {
+    @Transactional(readOnly = true)
+    public List<ProductsDTO> filterProductsbyPrice(Double minPrice, Double maxPrice, String sortDirection) throws NegativePriceException {
+        validatePriceRange(minPrice, maxPrice);
+        Sort sort = Sort.by(parseSortDirection(sortDirection), "price").and(Sort.by("id"));
+
+        // A missing bound is left out of the query rather than replaced by a value
+        if (minPrice != null && maxPrice != null) {
+            return productsRepository.findByPriceRange(minPrice, maxPrice, sort);
+        }
+        if (minPrice != null) {
+            return productsRepository.findByMinPrice(minPrice, sort);
+        }
+        if (maxPrice != null) {
+            return productsRepository.findByMaxPrice(maxPrice, sort);
+        }
+        return productsRepository.findAllSorted(sort);
+    }
+
+    static void validatePriceRange(Double minPrice, Double maxPrice) throws NegativePriceException {
+        if (maxPrice != null && maxPrice <= 0.0) {
             throw new NegativePriceException("Price cannot be zero or lower.");
         }
-        return productsRepository.findAll().stream()
-                .filter(product -> product.getPrice() <= maxPrice)
-                .map(product -> new ProductsDTO(
-                                product.getId(),
-                                product.getProductCode(),
-                                product.getProductName(),
-                                product.getDescription(),
-                                product.getPrice()
-                        )
-                ).toList();
+        if (minPrice != null && minPrice < 0.0) {
+            throw new NegativePriceException("Minimum price cannot be lower than zero.");
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("Minimum price cannot be greater than maximum price.");
+        }
+    }
+
+    static Sort.Direction parseSortDirection(String sortDirection) {
+        return Sort.Direction.fromOptionalString(sortDirection)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid sort direction: " + sortDirection));
     }
 
+    @Transactional
     public void deleteProduct(Long id) {
-        if (!productsRepository.existsById(id)) {
-            throw new IllegalArgumentException("Product not found.");
-        }
-        productsRepository.deleteById(id);
+        Products product = productsRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found."));
+        productsRepository.delete(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, id, product.getProductCode()));
     }
 
     /**
@@ -114,7 +183,23 @@ public class ProductService {
     public Products updateProduct(Long id, ProductsUpdateDTO updatedProduct) {
         Products existingProduct = productsRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found."));
+        String previousProductCode = existingProduct.getProductCode();
+        applyUpdate(existingProduct, updatedProduct);
+
+        Products savedProduct = productsRepository.save(existingProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, savedProduct.getId(), savedProduct.getProductCode(),
+                previousProductCode.equals(savedProduct.getProductCode()) ? null : previousProductCode));
+        return savedProduct;
+    }
 
+    /**
+     * Copies the fields provided in the update onto the product and updates or adds its options.
+     * Does not save the product.
+     *
+     * @param existingProduct The product to change, with its options loaded.
+     * @param updatedProduct  The details to update the product with.
+     */
+    public void applyUpdate(Products existingProduct, ProductsUpdateDTO updatedProduct) {
         // Update fields if provided
         if (updatedProduct.getProductCode() != null) {
             existingProduct.setProductCode(updatedProduct.getProductCode());
@@ -126,12 +211,12 @@ public class ProductService {
             existingProduct.setPrice(updatedProduct.getPrice());
         }
         if (updatedProduct.getCategoryId() != null) {
-            Categories category = categoriesRepository.findById(updatedProduct.getCategoryId())
+            Categories category = referenceData.findCategory(updatedProduct.getCategoryId())
                     .orElseThrow(() -> new IllegalArgumentException("Invalid category ID."));
             existingProduct.setCategoryId(category);
         }
         if (updatedProduct.getBrandId() != null) {
-            Brands brand = brandsRepository.findById(updatedProduct.getBrandId())
+            Brands brand = referenceData.findBrand(updatedProduct.getBrandId())
                     .orElseThrow(() -> new IllegalArgumentException("Invalid brand ID."));
             existingProduct.setBrandId(brand);
         }
@@ -143,8 +228,6 @@ public class ProductService {
         if (updatedProduct.getProductOptions() != null) {
             updateProductOptions(existingProduct, updatedProduct.getProductOptions());
         }
-
-        return productsRepository.save(existingProduct);
     }
     /**
      * Updates or creates product options for a product.
@@ -166,12 +249,12 @@ public class ProductService {
                 }
 
                 if (optionDTO.getSizeId() != null) {
-                    Sizes size = sizesRepository.findById(optionDTO.getSizeId())
+                    Sizes size = referenceData.findSize(optionDTO.getSizeId())
                             .orElseThrow(() -> new IllegalArgumentException("Invalid size ID: " + optionDTO.getSizeId()));
                     existingOption.setSize(size);
                 }
                 if (optionDTO.getColorId() != null) {
-                    Colors color = colorsRepository.findById(optionDTO.getColorId())
+                    Colors color = referenceData.findColor(optionDTO.getColorId())
                             .orElseThrow(() -> new IllegalArgumentException("Invalid color ID: " + optionDTO.getColorId()));
                     existingOption.setColor(color);
                 }
@@ -185,11 +268,11 @@ public class ProductService {
 
                 ProductOptions newOption = new ProductOptions();
                 newOption.setProductId(product);
-                Sizes size = sizesRepository.findById(optionDTO.getSizeId())
+                Sizes size = referenceData.findSize(optionDTO.getSizeId())
                         .orElseThrow(() -> new IllegalArgumentException("Invalid size ID: " + optionDTO.getSizeId()));
                 newOption.setSize(size);
 
-                Colors color = colorsRepository.findById(optionDTO.getColorId())
+                Colors color = referenceData.findColor(optionDTO.getColorId())
                         .orElseThrow(() -> new IllegalArgumentException("Invalid color ID: " + optionDTO.getColorId()));
                 newOption.setColor(color);
 
@@ -209,18 +292,34 @@ public class ProductService {
         if (productsRepository.existsByProductCode(newProductDTO.getProductCode())) {
             throw new IllegalArgumentException("Product code already exists.");
         }
+        Products savedProduct = productsRepository.save(buildProduct(newProductDTO));
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, savedProduct.getId(), savedProduct.getProductCode()));
+        return savedProduct;
+    }
 
+    /**
+     * Validates the product details against the reference data and builds a new, unsaved product with its options.
+     * Does not check whether the product code is already taken.
+     *
+     * @param newProductDTO The product details to create.
+     * @return The product, ready to be saved.
+     */
+    public Products buildProduct(ProductsUpdateDTO newProductDTO) {
+        // The columns are NOT NULL, checked here so a bad row fails on its own instead of failing the flush
+        if (newProductDTO.getProductCode() == null || newProductDTO.getProductName() == null || newProductDTO.getPrice() == null) {
+            throw new IllegalArgumentException("All fields (productCode, productName, price) must be provided.");
+        }
         Products productToSave = new Products();
         productToSave.setProductCode(newProductDTO.getProductCode());
         productToSave.setProductName(newProductDTO.getProductName());
         productToSave.setDescription(newProductDTO.getDescription());
         productToSave.setPrice(newProductDTO.getPrice());
 
-        Categories category = categoriesRepository.findById(newProductDTO.getCategoryId())
+        Categories category = referenceData.findCategory(newProductDTO.getCategoryId())
                 .orElseThrow(() -> new IllegalArgumentException("Invalid Category ID: " + newProductDTO.getCategoryId()));
         productToSave.setCategoryId(category);
 
-        Brands brand = brandsRepository.findById(newProductDTO.getBrandId())
+        Brands brand = referenceData.findBrand(newProductDTO.getBrandId())
                 .orElseThrow(() -> new IllegalArgumentException("Invalid Brand ID: " + newProductDTO.getBrandId()));
         productToSave.setBrandId(brand);
 
@@ -233,11 +332,11 @@ public class ProductService {
                 ProductOptions newOption = new ProductOptions();
                 newOption.setProductId(productToSave);
 
-                Sizes size = sizesRepository.findById(newOptionDTO.getSizeId())
+                Sizes size = referenceData.findSize(newOptionDTO.getSizeId())
                         .orElseThrow(() -> new IllegalArgumentException("Invalid Size ID: " + newOptionDTO.getSizeId()));
                 newOption.setSize(size);
 
-                Colors color = colorsRepository.findById(newOptionDTO.getColorId())
+                Colors color = referenceData.findColor(newOptionDTO.getColorId())
                         .orElseThrow(() -> new IllegalArgumentException("Invalid Color ID: " + newOptionDTO.getColorId()));
                 newOption.setColor(color);
 
@@ -248,6 +347,6 @@ public class ProductService {
                 productToSave.getProductOptions().add(newOption);
             }
         }
-        return productsRepository.save(productToSave);
+        return productToSave;
     }
 }
\ No newline at end of file
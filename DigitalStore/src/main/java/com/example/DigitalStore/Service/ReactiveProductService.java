@@ -0,0 +1,92 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.model.Categories;
+import com.example.DigitalStore.repository.ReactiveCatalogRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of the read methods of {@link ProductService} and the reference data lookups,
+ * reading straight from the database through {@link ReactiveCatalogRepository}.
+ * Arguments are validated before anything is subscribed, with the same rules and messages as the blocking path.
+ */
+@Service
+@ConditionalOnProperty("reactive-datasource.url")
+public class ReactiveProductService {
+
+    private final ReactiveCatalogRepository reactiveCatalogRepository;
+
+    public ReactiveProductService(ReactiveCatalogRepository reactiveCatalogRepository) {
+        this.reactiveCatalogRepository = reactiveCatalogRepository;
+    }
+
+    /**
+     * Streams the products ordered by id, starting after the given id.
+     *
+     * @param afterId The id the stream starts after, null for the first product.
+     * @param limit   The maximum number of products, null for all remaining products.
+     * @return The products, read from the database as they are requested.
+     */
+    public Flux<ProductsDTO> getProducts(Long afterId, Integer limit) {
+        if (limit != null && (limit <= 0 || limit > ProductService.MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + ProductService.MAX_PAGE_SIZE + ".");
+        }
+        return reactiveCatalogRepository.findProductsAfter(afterId != null ? afterId : 0L, limit);
+    }
+
+    /**
+     * Returns the options of a product with their size and color.
+     *
+     * @param productCode The code of the product.
+     * @return The options, or an IllegalArgumentException if there is no such product.
+     */
+    public Mono<List<ProductOptionsGetDTO>> getProductOptions(String productCode) {
+        return reactiveCatalogRepository.findOptionsByProductCode(productCode)
+                .collectList()
+                .flatMap(rows -> rows.isEmpty()
+                        ? Mono.error(new IllegalArgumentException("Product with code " + productCode + " not found."))
+                        : Mono.just(rows.stream()
+                                .filter(option -> option.getId() != null) // product exists but has no options
+                                .toList()));
+    }
+
+    /**
+     * Streams the products within a price range sorted by price.
+     *
+     * @param minPrice      minimum price, if null there is no lower bound
+     * @param maxPrice      maximum price, if null there is no upper bound
+     * @param sortDirection "asc" or "desc", sort order on price
+     * @return The products within the price range.
+     * @throws NegativePriceException if maxPrice is equal to or less than zero or minPrice is below zero
+     */
+    public Flux<ProductsDTO> filterProductsByPrice(Double minPrice, Double maxPrice, String sortDirection) throws NegativePriceException {
+        ProductService.validatePriceRange(minPrice, maxPrice);
+        Sort.Direction direction = ProductService.parseSortDirection(sortDirection);
+        return reactiveCatalogRepository.findByPriceRange(minPrice, maxPrice, direction);
+    }
+
+    public Mono<Map<Long, String>> getBrandNames() {
+        return reactiveCatalogRepository.findBrandNames().collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+    }
+
+    public Mono<Map<Long, String>> getSizeNames() {
+        return reactiveCatalogRepository.findSizeNames().collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+    }
+
+    public Mono<Map<Long, String>> getColorNames() {
+        return reactiveCatalogRepository.findColorNames().collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+    }
+
+    public Mono<List<Categories>> getCategories() {
+        return reactiveCatalogRepository.findCategories().collectList();
+    }
+}
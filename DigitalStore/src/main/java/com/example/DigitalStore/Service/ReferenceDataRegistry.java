@@ -0,0 +1,197 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.CategoryNodeDTO;
+import com.example.DigitalStore.model.Brands;
+import com.example.DigitalStore.model.Categories;
+import com.example.DigitalStore.model.Colors;
+import com.example.DigitalStore.model.Sizes;
+import com.example.DigitalStore.repository.BrandsRepository;
+import com.example.DigitalStore.repository.CategoriesRepository;
+import com.example.DigitalStore.repository.ColorsRepository;
+import com.example.DigitalStore.repository.SizesRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Keeps sizes, colors, brands and categories in memory as immutable id -> entity maps.
+ * The tables are small and rarely change, so lookups and the reference data endpoints
+ * are served from here without a database round trip. A refresh builds a complete new
+ * snapshot and swaps it in at once, readers never see a half-loaded state.
+ * The category tree and the set of descendants of every category are precomputed with each snapshot.
+ */
+@Service
+public class ReferenceDataRegistry {
+
+    private final SizesRepository sizesRepository;
+    private final ColorsRepository colorsRepository;
+    private final BrandsRepository brandsRepository;
+    private final CategoriesRepository categoriesRepository;
+    private final CatalogVersion catalogVersion;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public ReferenceDataRegistry(SizesRepository sizesRepository, ColorsRepository colorsRepository, BrandsRepository brandsRepository,
+                                 CategoriesRepository categoriesRepository, CatalogVersion catalogVersion) {
+        this.sizesRepository = sizesRepository;
+        this.colorsRepository = colorsRepository;
+        this.brandsRepository = brandsRepository;
+        this.categoriesRepository = categoriesRepository;
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Reloads all reference tables and replaces the current snapshot.
+     * Runs at startup and periodically so rows edited directly in the database are picked up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${reference-data.refresh-interval:PT5M}", fixedDelayString = "${reference-data.refresh-interval:PT5M}")
+    public void refresh() {
+        Map<Long, Sizes> sizes = byId(sizesRepository.findAll(), Sizes::getId);
+        Map<Long, Colors> colors = byId(colorsRepository.findAll(), Colors::getId);
+        Map<Long, Brands> brands = byId(brandsRepository.findAll(), Brands::getId);
+        Map<Long, Categories> categories = byId(categoriesRepository.findAll(), Categories::getId);
+
+        Map<Long, List<Categories>> children = new HashMap<>();
+        for (Categories category : categories.values()) {
+            children.computeIfAbsent(category.getParentId(), parentId -> new ArrayList<>()).add(category);
+        }
+        Map<Long, Set<Long>> subtrees = new HashMap<>();
+        for (Long categoryId : categories.keySet()) {
+            subtrees.put(categoryId, Collections.unmodifiableSet(subtree(categoryId, children)));
+        }
+        List<CategoryNodeDTO> tree = children.getOrDefault(null, List.of()).stream()
+                .map(root -> node(root, children, new HashSet<>()))
+                .toList();
+
+        Snapshot previous = snapshot.getAndSet(new Snapshot(
+                sizes, colors, brands, categories,
+                names(sizes, Sizes::getSize),
+                names(colors, Colors::getColor),
+                names(brands, Brands::getBrandName),
+                List.copyOf(categories.values()),
+                Map.copyOf(subtrees),
+                tree));
+        if (previous != null && previous.changedIn(snapshot.get())) {
+            catalogVersion.bump();
+        }
+    }
+
+    public Optional<Sizes> findSize(Long id) {
+        return Optional.ofNullable(current().sizes().get(id));
+    }
+
+    public Optional<Colors> findColor(Long id) {
+        return Optional.ofNullable(current().colors().get(id));
+    }
+
+    public Optional<Brands> findBrand(Long id) {
+        return Optional.ofNullable(current().brands().get(id));
+    }
+
+    public Optional<Categories> findCategory(Long id) {
+        return Optional.ofNullable(current().categories().get(id));
+    }
+
+    public Map<Long, String> getSizeNames() {
+        return current().sizeNames();
+    }
+
+    public Map<Long, String> getColorNames() {
+        return current().colorNames();
+    }
+
+    public Map<Long, String> getBrandNames() {
+        return current().brandNames();
+    }
+
+    public List<Categories> getCategories() {
+        return current().categoryList();
+    }
+
+    /**
+     * Returns the id of the category together with the ids of all its descendants.
+     *
+     * @param categoryId The root of the subtree.
+     * @return The category ids in the subtree.
+     */
+    public Set<Long> getCategorySubtree(Long categoryId) {
+        Set<Long> subtree = current().subtrees().get(categoryId);
+        if (subtree == null) {
+            throw new IllegalArgumentException("Invalid category ID: " + categoryId);
+        }
+        return subtree;
+    }
+
+    public List<CategoryNodeDTO> getCategoryTree() {
+        return current().tree();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null) { // a request arrived before the startup load finished
+            refresh();
+            current = snapshot.get();
+        }
+        return current;
+    }
+
+    // Ordered by id so the endpoints return a stable order
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        Map<Long, T> map = new TreeMap<>();
+        entities.forEach(entity -> map.put(id.apply(entity), entity));
+        return Collections.unmodifiableMap(new LinkedHashMap<>(map));
+    }
+
+    // Walks the tree below the category, the visited set protects against cycles in parent_id
+    private static Set<Long> subtree(Long categoryId, Map<Long, List<Categories>> children) {
+        Set<Long> subtree = new LinkedHashSet<>();
+        Deque<Long> pending = new ArrayDeque<>(List.of(categoryId));
+        while (!pending.isEmpty()) {
+            Long id = pending.pop();
+            if (subtree.add(id)) {
+                children.getOrDefault(id, List.of()).forEach(child -> pending.push(child.getId()));
+            }
+        }
+        return subtree;
+    }
+
+    private static CategoryNodeDTO node(Categories category, Map<Long, List<Categories>> children, Set<Long> path) {
+        path.add(category.getId());
+        List<CategoryNodeDTO> childNodes = children.getOrDefault(category.getId(), List.of()).stream()
+                .filter(child -> !path.contains(child.getId()))
+                .map(child -> node(child, children, path))
+                .toList();
+        path.remove(category.getId());
+        return new CategoryNodeDTO(category.getId(), category.getCategoryName(), childNodes);
+    }
+
+    private static <T> Map<Long, String> names(Map<Long, T> entities, Function<T, String> name) {
+        Map<Long, String> map = new LinkedHashMap<>();
+        entities.forEach((id, entity) -> map.put(id, name.apply(entity)));
+        return Collections.unmodifiableMap(map);
+    }
+
+    private record Snapshot(
+            Map<Long, Sizes> sizes,
+            Map<Long, Colors> colors,
+            Map<Long, Brands> brands,
+            Map<Long, Categories> categories,
+            Map<Long, String> sizeNames,
+            Map<Long, String> colorNames,
+            Map<Long, String> brandNames,
+            List<Categories> categoryList,
+            Map<Long, Set<Long>> subtrees,
+            List<CategoryNodeDTO> tree
+    ) {
+        boolean changedIn(Snapshot other) {
+            return !sizeNames.equals(other.sizeNames) || !colorNames.equals(other.colorNames)
+                    || !brandNames.equals(other.brandNames) || !tree.equals(other.tree);
+        }
+    }
+}
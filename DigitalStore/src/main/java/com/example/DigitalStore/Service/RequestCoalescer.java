@@ -0,0 +1,89 @@
+package com.example.DigitalStore.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight loading: concurrent calls with the same key share one load and its result, or its exception.
+ * Nothing is kept once the load finished, the next call loads again, so this only collapses identical reads
+ * that overlap in time. Calls are counted in the reads.coalescing counter, tagged with the query and
+ * whether the call loaded or joined a load in flight.
+ *
+ * @param <K> The key, equal keys must mean the same query with the same arguments.
+ * @param <V> The loaded value, shared between all callers of one load, so it should not be modified.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter loaded;
+    private final Counter coalesced;
+
+    public RequestCoalescer(String query, MeterRegistry meterRegistry) {
+        this.loaded = counter(query, "loaded", meterRegistry);
+        this.coalesced = counter(query, "coalesced", meterRegistry);
+    }
+
+    static Counter counter(String query, String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("reads.coalescing")
+                .description("Reads that ran their own load or joined an identical load in flight")
+                .tag("query", query)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the result of the load in flight for the key, or runs the loader on the calling thread.
+     *
+     * @param key    Identifies the query and its arguments.
+     * @param loader Loads the value when no load for the key is in flight.
+     * @return The loaded value.
+     */
+    public V get(K key, Supplier<V> loader) {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+        loaded.increment();
+        try {
+            V value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Lets the following calls start a new load instead of joining the ones in flight, whose results may
+     * have been read before a change. Callers already waiting still get the result of their load.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    // The exception of the load is rethrown unwrapped, as the loading caller got it
+    private static <V> V join(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Warms the caches of a new instance before it takes traffic, enabled with startup.prewarm.enabled.
+ * Loads the options of the first products into the product detail cache and waits until the catalog
+ * snapshot is built, together for at most the configured timeout.
+ * Spring Boot reports the instance ready only after all ApplicationReadyEvent listeners returned, so a load
+ * balancer that checks /actuator/health/readiness does not send the first requests to cold caches.
+ * The switch is read at runtime instead of being a bean condition, so an AOT-processed build can turn it on and off.
+ */
+@Service
+public class StartupPrewarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupPrewarmer.class);
+
+    private final ProductsRepository productsRepository;
+    private final ProductDetailCache productDetailCache;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final boolean enabled;
+    private final int products;
+    private final Duration timeout;
+
+    public StartupPrewarmer(ProductsRepository productsRepository, ProductDetailCache productDetailCache,
+                            CatalogSnapshotService catalogSnapshotService,
+                            @Value("${startup.prewarm.enabled:false}") boolean enabled,
+                            @Value("${startup.prewarm.products:1000}") int products,
+                            @Value("${startup.prewarm.timeout:PT30S}") Duration timeout) {
+        this.productsRepository = productsRepository;
+        this.productDetailCache = productDetailCache;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.enabled = enabled;
+        this.products = products;
+        this.timeout = timeout;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+
+        int warmed = 0;
+        List<ProductsDTO> first = products > 0 ? productsRepository.findPageAfter(0L, Limit.of(products)) : List.of();
+        for (ProductsDTO product : first) {
+            if (System.nanoTime() > deadline) {
+                break;
+            }
+            try {
+                productDetailCache.getProductOptions(product.productCode());
+                warmed++;
+            } catch (IllegalArgumentException e) {
+                // deleted in the meantime
+            }
+        }
+
+        boolean snapshotReady = !catalogSnapshotService.isEnabled();
+        while (!snapshotReady && System.nanoTime() < deadline) {
+            snapshotReady = catalogSnapshotService.isCurrent();
+            if (!snapshotReady) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        log.info("Prewarmed {} product details in {} ms, catalog snapshot {}", warmed,
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), snapshotReady ? "ready" : "not ready");
+    }
+}
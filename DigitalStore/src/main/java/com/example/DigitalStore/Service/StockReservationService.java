@@ -0,0 +1,152 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.StockReservationDTO;
+import com.example.DigitalStore.model.ReservationStatus;
+import com.example.DigitalStore.model.StockReservations;
+import com.example.DigitalStore.repository.ProductOptionsRepository;
+import com.example.DigitalStore.repository.StockReservationsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Reserves, releases and commits stock of product options.
+ * Stock is only changed with conditional single-row updates, so concurrent buyers never oversell
+ * and no row stays locked longer than one short statement.
+ */
+@Service
+public class StockReservationService {
+
+    private static final int EXPIRY_BATCH_SIZE = 500;
+
+    private final ProductOptionsRepository productOptionsRepository;
+    private final StockReservationsRepository stockReservationsRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultTtl;
+
+    public StockReservationService(ProductOptionsRepository productOptionsRepository, StockReservationsRepository stockReservationsRepository,
+                                   ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                                   @Value("${stock-reservation.default-ttl:PT15M}") Duration defaultTtl) {
+        this.productOptionsRepository = productOptionsRepository;
+        this.stockReservationsRepository = stockReservationsRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtl = defaultTtl;
+    }
+
+    /**
+     * Takes stock of an option and holds it for the buyer until the reservation is committed, released or expires.
+     *
+     * @param optionId   The product option to reserve.
+     * @param quantity   The number of items to reserve.
+     * @param ttlSeconds How long to hold the stock, null for the configured default.
+     * @return The new reservation.
+     * @throws InsufficientStockException if the option has less stock than requested
+     */
+    @Transactional
+    public StockReservationDTO reserve(Long optionId, Integer quantity, Long ttlSeconds) throws InsufficientStockException {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0.");
+        }
+        if (ttlSeconds != null && ttlSeconds <= 0) {
+            throw new IllegalArgumentException("TTL must be greater than 0 seconds.");
+        }
+        if (productOptionsRepository.decrementStock(optionId, quantity) == 0) {
+            if (productOptionsRepository.findStockQuantity(optionId).isEmpty()) {
+                throw new IllegalArgumentException("Invalid product option ID: " + optionId);
+            }
+            throw new InsufficientStockException("Not enough stock for product option " + optionId + ".");
+        }
+
+        Instant now = Instant.now();
+        StockReservations reservation = new StockReservations();
+        reservation.setOptionId(optionId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(ReservationStatus.RESERVED);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plus(ttlSeconds != null ? Duration.ofSeconds(ttlSeconds) : defaultTtl));
+        stockReservationsRepository.save(reservation);
+
+        publishStockChanged(optionId);
+        return toDTO(reservation);
+    }
+
+    /**
+     * Gives the reserved stock back to the option.
+     *
+     * @param reservationId The reservation to release.
+     * @return The released reservation.
+     */
+    @Transactional
+    public StockReservationDTO release(Long reservationId) {
+        return finish(reservationId, ReservationStatus.RELEASED);
+    }
+
+    /**
+     * Marks the reservation as bought, the reserved stock is not given back.
+     *
+     * @param reservationId The reservation to commit.
+     * @return The committed reservation.
+     */
+    @Transactional
+    public StockReservationDTO commit(Long reservationId) {
+        StockReservations reservation = findReservation(reservationId);
+        if (stockReservationsRepository.commit(reservationId, Instant.now()) == 0) {
+            throw new IllegalStateException("Reservation " + reservationId + " is no longer active.");
+        }
+        reservation.setStatus(ReservationStatus.COMMITTED);
+        return toDTO(reservation);
+    }
+
+    /**
+     * Gives back the stock of reservations whose TTL has passed.
+     * Every reservation is expired in its own short transaction.
+     */
+    @Scheduled(fixedDelayString = "${stock-reservation.expiry-interval:PT10S}")
+    public void expireReservations() {
+        for (Long reservationId : stockReservationsRepository.findExpiredIds(Instant.now(), Limit.of(EXPIRY_BATCH_SIZE))) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> finish(reservationId, ReservationStatus.EXPIRED));
+            } catch (IllegalStateException e) {
+                // committed or released in the meantime
+            }
+        }
+    }
+
+    // The conditional status update decides which caller gives the stock back, so it is returned only once
+    private StockReservationDTO finish(Long reservationId, ReservationStatus newStatus) {
+        StockReservations reservation = findReservation(reservationId);
+        if (stockReservationsRepository.finish(reservationId, newStatus) == 0) {
+            throw new IllegalStateException("Reservation " + reservationId + " is no longer active.");
+        }
+        productOptionsRepository.incrementStock(reservation.getOptionId(), reservation.getQuantity());
+        reservation.setStatus(newStatus);
+
+        publishStockChanged(reservation.getOptionId());
+        return toDTO(reservation);
+    }
+
+    private StockReservations findReservation(Long reservationId) {
+        return stockReservationsRepository.findById(reservationId)
+                .orElseThrow(() -> new IllegalArgumentException("Reservation not found."));
+    }
+
+    private void publishStockChanged(Long optionId) {
+        productOptionsRepository.findProductOfOption(optionId).ifPresent(product ->
+                eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.STOCK_CHANGED, product.id(), product.productCode())));
+    }
+
+    private static StockReservationDTO toDTO(StockReservations reservation) {
+        return new StockReservationDTO(reservation.getId(), reservation.getOptionId(), reservation.getQuantity(),
+                reservation.getStatus(), reservation.getExpiresAt());
+    }
+}
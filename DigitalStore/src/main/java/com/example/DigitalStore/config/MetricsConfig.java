@@ -0,0 +1,33 @@
+package com.example.DigitalStore.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the per-request SQL metrics. Latency and error counts per endpoint come from
+ * Spring's http.server.requests timer, see application.properties.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final SqlMetricsInterceptor sqlMetricsInterceptor;
+
+    public MetricsConfig(MeterRegistry meterRegistry, @Value("${sql-metrics.query-budget:10}") int queryBudget) {
+        this.sqlMetricsInterceptor = new SqlMetricsInterceptor(meterRegistry, queryBudget);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlMetricsInterceptor);
+    }
+
+    // A StreamingResponseBody runs as a Callable on the async executor, its statements are counted there
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(sqlMetricsInterceptor);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.DigitalStore.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Non-blocking connection pool for the read endpoints under /reactive, created only when reactive-datasource.url is set.
+ * It is separate from the JDBC datasource, which JPA and every write keep using.
+ * Only the DatabaseClient is a bean: Spring Boot leaves out the JDBC datasource when a ConnectionFactory bean exists,
+ * so the pool is owned and closed by this configuration. Spring Boot's own R2DBC auto-configuration is excluded in
+ * {@link com.example.DigitalStore.Application} for the same reason.
+ */
+@Configuration
+@ConditionalOnProperty("reactive-datasource.url")
+public class ReactiveDataSourceConfig {
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${reactive-datasource.url}") String url,
+                                                 @Value("${reactive-datasource.username:${spring.datasource.username:}}") String username,
+                                                 @Value("${reactive-datasource.password:${spring.datasource.password:}}") String password,
+                                                 @Value("${reactive-datasource.max-size:10}") int maxSize) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (!password.isEmpty()) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("reactive")
+                .maxSize(maxSize)
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
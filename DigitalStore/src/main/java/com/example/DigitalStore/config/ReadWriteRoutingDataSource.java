@@ -0,0 +1,64 @@
+package com.example.DigitalStore.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * Used behind a LazyConnectionDataSourceProxy, so the connection is only taken when the first statement runs
+ * and the read-only flag of the transaction is known by then.
+ * Reads that must see the latest commit can be pinned to the primary with {@link #onPrimary(Supplier)}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = ThreadLocal.withInitial(() -> false);
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PINNED_TO_PRIMARY.get()
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+
+    /**
+     * Runs the action with all reads of the current thread going to the primary.
+     * Without a replica configured this only runs the action.
+     *
+     * @param action The reads that must not lag behind the primary.
+     * @return The result of the action.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = pinToPrimary(true);
+        try {
+            return action.get();
+        } finally {
+            pinToPrimary(previous);
+        }
+    }
+
+    /**
+     * @return Whether reads of the current thread go to the primary even in read-only transactions.
+     */
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get();
+    }
+
+    // Returns the previous value, so nested pins can restore it
+    static boolean pinToPrimary(boolean pinned) {
+        boolean previous = PINNED_TO_PRIMARY.get();
+        PINNED_TO_PRIMARY.set(pinned);
+        return previous;
+    }
+}
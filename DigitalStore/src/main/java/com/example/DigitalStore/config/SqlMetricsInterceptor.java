@@ -0,0 +1,114 @@
+package com.example.DigitalStore.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL statements and JDBC time of every controller method call:
+ * http.server.requests.sql.statements and http.server.requests.jdbc.time, tagged with controller and method.
+ * Requests with more statements than the query budget are counted in http.server.requests.sql.over.budget
+ * and logged, so an N+1 regression shows up at the first request that hits it.
+ * <p>
+ * An async request (StreamingResponseBody, SseEmitter) is recorded once, when it completes. Its stats are kept
+ * in a request attribute and bound again on every thread working for it: the async dispatch, the thread running
+ * a streamed body (registered as {@link CallableProcessingInterceptor}), and threads binding them explicitly
+ * with {@link SqlStatementListener#inRequest}.
+ */
+public class SqlMetricsInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlMetricsInterceptor.class);
+    private static final String STATS_ATTRIBUTE = SqlMetricsInterceptor.class.getName() + ".stats";
+
+    private final MeterRegistry meterRegistry;
+    private final int queryBudget;
+
+    public SqlMetricsInterceptor(MeterRegistry meterRegistry, int queryBudget) {
+        this.meterRegistry = meterRegistry;
+        this.queryBudget = queryBudget;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            SqlStatementListener.RequestSqlStats stats = (SqlStatementListener.RequestSqlStats) request.getAttribute(STATS_ATTRIBUTE);
+            if (stats == null || request.getDispatcherType() != DispatcherType.ASYNC) {
+                stats = new SqlStatementListener.RequestSqlStats();
+                request.setAttribute(STATS_ATTRIBUTE, stats);
+            }
+            SqlStatementListener.bind(stats);
+        }
+        return true;
+    }
+
+    // The request goes on on other threads, it is recorded in afterCompletion of the async dispatch
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatementListener.unbind();
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        SqlStatementListener.RequestSqlStats stats = (SqlStatementListener.RequestSqlStats)
+                request.getAttribute(STATS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (stats != null) {
+            SqlStatementListener.bind(stats);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        SqlStatementListener.unbind();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        SqlStatementListener.unbind();
+        SqlStatementListener.RequestSqlStats stats = (SqlStatementListener.RequestSqlStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (stats == null) {
+            return;
+        }
+        request.removeAttribute(STATS_ATTRIBUTE);
+        Tags tags = Tags.of("controller", handlerMethod.getBeanType().getSimpleName(), "method", handlerMethod.getMethod().getName());
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements executed per request")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.statements());
+        Timer.builder("http.server.requests.jdbc.time")
+                .description("Time spent executing SQL per request")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.jdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.statements() > queryBudget) {
+            Counter.builder("http.server.requests.sql.over.budget")
+                    .description("Requests that executed more SQL statements than the query budget")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("{} {} executed {} SQL statements, the query budget is {} ({}.{})", request.getMethod(), request.getRequestURI(),
+                    stats.statements(), queryBudget, handlerMethod.getBeanType().getSimpleName(), handlerMethod.getMethod().getName());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.DigitalStore.config;
+
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Counts the JDBC statements and the time spent executing them for the current HTTP request.
+ * Hibernate creates one listener per session (hibernate.session.events.auto); the counts go to the
+ * request bound to the same thread by {@link SqlMetricsInterceptor}, statements outside a request are ignored.
+ * Work a request hands to another thread, e.g. a streamed body or server-sent events, is counted when that
+ * thread binds the request's stats as well.
+ * A JDBC batch counts as one statement, it is one round trip to the database.
+ */
+public class SqlStatementListener implements SessionEventListener {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT_REQUEST = new ThreadLocal<>();
+
+    private long executeStart;
+
+    static void bind(RequestSqlStats stats) {
+        CURRENT_REQUEST.set(stats);
+    }
+
+    static void unbind() {
+        CURRENT_REQUEST.remove();
+    }
+
+    /**
+     * @return The stats of the request handled on this thread, null outside a request.
+     */
+    public static RequestSqlStats currentRequest() {
+        return CURRENT_REQUEST.get();
+    }
+
+    /**
+     * Runs work of a request on another thread, counting its statements for that request.
+     *
+     * @param stats The stats of the request from {@link #currentRequest()}, null to count nothing.
+     */
+    public static <T> T inRequest(RequestSqlStats stats, Supplier<T> work) {
+        RequestSqlStats previous = CURRENT_REQUEST.get();
+        CURRENT_REQUEST.set(stats);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_REQUEST.set(previous);
+            } else {
+                CURRENT_REQUEST.remove();
+            }
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        RequestSqlStats stats = CURRENT_REQUEST.get();
+        if (stats != null) {
+            stats.statements.incrementAndGet();
+            stats.jdbcNanos.addAndGet(System.nanoTime() - executeStart);
+        }
+    }
+
+    // Atomic, the threads of an async request may still count while the request completes
+    public static class RequestSqlStats {
+        private final AtomicInteger statements = new AtomicInteger();
+        private final AtomicLong jdbcNanos = new AtomicLong();
+
+        int statements() {
+            return statements.get();
+        }
+
+        long jdbcNanos() {
+            return jdbcNanos.get();
+        }
+    }
+}
@@ -1,30 +1,41 @@
 package com.example.DigitalStore.controller;
 
-import com.example.DigitalStore.model.Brands;
-import com.example.DigitalStore.repository.BrandsRepository;
+import com.example.DigitalStore.Service.CatalogSnapshotService;
+import com.example.DigitalStore.Service.CatalogVersion;
+import com.example.DigitalStore.Service.ReferenceDataRegistry;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/brands")
 public class BrandController {
 
-    private final BrandsRepository brandsRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final CatalogVersion catalogVersion;
+    private final CatalogSnapshotService catalogSnapshotService;
     // Constructor for DI (Dependency Injection)
-    public BrandController(BrandsRepository brandsRepository) {
-        this.brandsRepository = brandsRepository;
+    public BrandController(ReferenceDataRegistry referenceData, CatalogVersion catalogVersion,
+                           CatalogSnapshotService catalogSnapshotService) {
+        this.referenceData = referenceData;
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshotService = catalogSnapshotService;
     }
-    // Get endpoint to fetch all brands from the database
+    // Get endpoint to fetch all brands from the in-memory reference data
     @GetMapping
-    public Map<Long, String> getAllBrandsAsMap() {
-        return brandsRepository.findAll().stream()
-                .collect(Collectors.toMap(
-                        Brands::getId,
-                        Brands::getBrandName
-                ));
+    public Map<Long, String> getAllBrandsAsMap(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (CatalogResponses.checkNotModified(catalogVersion, webRequest, response)) {
+            return null; // 304, the client copy is current
+        }
+        if (CatalogResponses.writeSnapshot(catalogSnapshotService.get(CatalogSnapshotService.BRANDS), request, response)) {
+            return null; // written from the serialized snapshot
+        }
+        return referenceData.getBrandNames();
     }
 }
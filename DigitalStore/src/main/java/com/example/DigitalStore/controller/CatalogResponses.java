@@ -0,0 +1,102 @@
+package com.example.DigitalStore.controller;
+
+import com.example.DigitalStore.Service.CatalogSnapshotService.Snapshot;
+import com.example.DigitalStore.Service.CatalogVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Format selection and snapshot writing shared by the catalog controllers.
+ */
+final class CatalogResponses {
+
+    static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    // The formats the catalog can be written in, in order of preference
+    static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+
+    private CatalogResponses() {
+    }
+
+    /**
+     * @param accept The Accept header, may be null.
+     * @return The first format the client accepts by quality, JSON when nothing else is asked for.
+     */
+    static MediaType preferredFormat(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(accepted);
+            for (MediaType mediaType : accepted) {
+                for (MediaType format : FORMATS) {
+                    if (mediaType.isCompatibleWith(format)) {
+                        return format;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // fall back to JSON like the other endpoints do for unparseable headers
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Checks the conditional request headers against the catalog version, for the format the client asks for.
+     * The ETag names the format and every response carries Vary: Accept, so a cache never answers a request
+     * for one format with another.
+     *
+     * @return true if the client copy is current and a 304 was set, nothing has to be written then.
+     */
+    static boolean checkNotModified(CatalogVersion catalogVersion, WebRequest webRequest, HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        MediaType format = preferredFormat(webRequest.getHeader(HttpHeaders.ACCEPT));
+        return webRequest.checkNotModified(catalogVersion.eTag(format.getSubtype()), catalogVersion.lastModified());
+    }
+
+    /**
+     * Writes the snapshot bytes as the response body, the gzipped bytes when the client accepts gzip.
+     * Only JSON is kept as snapshot, other formats are built per request.
+     *
+     * @return true if the response was written, false if the caller has to build it.
+     */
+    static boolean writeSnapshot(Optional<Snapshot> snapshot, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (snapshot.isEmpty() || !MediaType.APPLICATION_JSON.equals(preferredFormat(request.getHeader(HttpHeaders.ACCEPT)))) {
+            return false;
+        }
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = gzip ? snapshot.get().gzip() : snapshot.get().json();
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            // Set before writing, so the server does not compress the body again
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return true;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
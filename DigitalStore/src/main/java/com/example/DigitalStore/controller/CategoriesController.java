@@ -1,24 +1,72 @@
 package com.example.DigitalStore.controller;
 
+import com.example.DigitalStore.DTO.CategoryNodeDTO;
+import com.example.DigitalStore.Service.CatalogSnapshotService;
+import com.example.DigitalStore.Service.CatalogVersion;
+import com.example.DigitalStore.Service.ProductService;
+import com.example.DigitalStore.Service.ReferenceDataRegistry;
 import com.example.DigitalStore.model.Categories;
-import com.example.DigitalStore.repository.CategoriesRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/categories")
 public class CategoriesController {
 
-    private final CategoriesRepository categoriesRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final ProductService productService;
+    private final CatalogVersion catalogVersion;
+    private final CatalogSnapshotService catalogSnapshotService;
 
-    public CategoriesController(CategoriesRepository categoriesRepository) {
-        this.categoriesRepository = categoriesRepository;
+    public CategoriesController(ReferenceDataRegistry referenceData, ProductService productService, CatalogVersion catalogVersion,
+                                CatalogSnapshotService catalogSnapshotService) {
+        this.referenceData = referenceData;
+        this.productService = productService;
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshotService = catalogSnapshotService;
     }
-    // Get endpoint to fetch all Categories from the database
+    // Get endpoint to fetch all Categories from the in-memory reference data
     @GetMapping
-    public List<Categories> getAllCategories() {
-        return categoriesRepository.findAll();
+    public List<Categories> getAllCategories(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (CatalogResponses.checkNotModified(catalogVersion, webRequest, response)) {
+            return null; // 304, the client copy is current
+        }
+        if (CatalogResponses.writeSnapshot(catalogSnapshotService.get(CatalogSnapshotService.CATEGORIES), request, response)) {
+            return null; // written from the serialized snapshot
+        }
+        return referenceData.getCategories();
+    }
+
+    // Get endpoint to fetch the Categories as a tree, main categories with their subcategories
+    @GetMapping("/tree")
+    public List<CategoryNodeDTO> getCategoryTree(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (CatalogResponses.checkNotModified(catalogVersion, webRequest, response)) {
+            return null; // 304, the client copy is current
+        }
+        if (CatalogResponses.writeSnapshot(catalogSnapshotService.get(CatalogSnapshotService.CATEGORY_TREE), request, response)) {
+            return null; // written from the serialized snapshot
+        }
+        return referenceData.getCategoryTree();
+    }
+
+    // Get endpoint to fetch the products of a category including all its subcategories
+    @GetMapping("/{id}/products")
+    public ResponseEntity<?> getProductsInCategory(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(productService.getProductsByCategory(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
     }
 }
@@ -1,30 +1,41 @@
 package com.example.DigitalStore.controller;
 
-import com.example.DigitalStore.model.Colors;
-import com.example.DigitalStore.repository.ColorsRepository;
+import com.example.DigitalStore.Service.CatalogSnapshotService;
+import com.example.DigitalStore.Service.CatalogVersion;
+import com.example.DigitalStore.Service.ReferenceDataRegistry;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/colors")
 public class ColorsController {
 
-    private final ColorsRepository colorsRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final CatalogVersion catalogVersion;
+    private final CatalogSnapshotService catalogSnapshotService;
 
-    public ColorsController(ColorsRepository colorsRepository) {
-        this.colorsRepository = colorsRepository;
+    public ColorsController(ReferenceDataRegistry referenceData, CatalogVersion catalogVersion,
+                            CatalogSnapshotService catalogSnapshotService) {
+        this.referenceData = referenceData;
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshotService = catalogSnapshotService;
     }
-    // Get endpoint to fetch all Colors with its ids from the database
+    // Get endpoint to fetch all Colors with its ids from the in-memory reference data
     @GetMapping
-    public Map<Long, String> getAllColorsAsMap() {
-        return colorsRepository.findAll().stream()
-                .collect(Collectors.toMap(
-                        Colors::getId,
-                        Colors::getColor
-                ));
+    public Map<Long, String> getAllColorsAsMap(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (CatalogResponses.checkNotModified(catalogVersion, webRequest, response)) {
+            return null; // 304, the client copy is current
+        }
+        if (CatalogResponses.writeSnapshot(catalogSnapshotService.get(CatalogSnapshotService.COLORS), request, response)) {
+            return null; // written from the serialized snapshot
+        }
+        return referenceData.getColorNames();
     }
 }
@@ -1,43 +1,215 @@
 package com.example.DigitalStore.controller;
 
 import com.example.DigitalStore.DTO.*;
+import com.example.DigitalStore.Service.CatalogEventPublisher;
+import com.example.DigitalStore.Service.CatalogSnapshotService;
+import com.example.DigitalStore.Service.CatalogVersion;
 import com.example.DigitalStore.Service.NegativePriceException;
+import com.example.DigitalStore.Service.PriceStatisticsService;
+import com.example.DigitalStore.Service.ProductBatchUpdateService;
+import com.example.DigitalStore.Service.ProductDetailCache;
 import com.example.DigitalStore.model.Products;
+import com.example.DigitalStore.Service.ProductFacetIndex;
+import com.example.DigitalStore.Service.ProductImportService;
+import com.example.DigitalStore.Service.ProductReadCoalescer;
+import com.example.DigitalStore.Service.ProductSearchIndex;
 import com.example.DigitalStore.Service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/products")
 public class ProductController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String DEFAULT_PERCENTILES = "25,50,75,90,99";
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ObjectMapper objectMapper;
+    private final CatalogVersion catalogVersion;
+    private final ProductDetailCache productDetailCache;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final PriceStatisticsService priceStatisticsService;
+    private final ProductBatchUpdateService productBatchUpdateService;
+    private final CatalogEventPublisher catalogEventPublisher;
+    private final ProductReadCoalescer productReadCoalescer;
+    private final Map<MediaType, ObjectMapper> streamingMappers;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService productImportService, ProductSearchIndex productSearchIndex,
+                             ProductFacetIndex productFacetIndex, ObjectMapper objectMapper, CatalogVersion catalogVersion,
+                             ProductDetailCache productDetailCache, MappingJackson2CborHttpMessageConverter cborConverter,
+                             MappingJackson2SmileHttpMessageConverter smileConverter, CatalogSnapshotService catalogSnapshotService,
+                             PriceStatisticsService priceStatisticsService, ProductBatchUpdateService productBatchUpdateService,
+                             CatalogEventPublisher catalogEventPublisher, ProductReadCoalescer productReadCoalescer) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.objectMapper = objectMapper;
+        this.catalogVersion = catalogVersion;
+        this.productDetailCache = productDetailCache;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.priceStatisticsService = priceStatisticsService;
+        this.productBatchUpdateService = productBatchUpdateService;
+        this.catalogEventPublisher = catalogEventPublisher;
+        this.productReadCoalescer = productReadCoalescer;
+        this.streamingMappers = Map.of(
+                MediaType.APPLICATION_JSON, objectMapper,
+                MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper(),
+                CatalogResponses.SMILE, smileConverter.getObjectMapper());
     }
 
+    // Without limit/cursor the whole listing is returned, in JSON, CBOR or Smile as the Accept header asks.
+    // The catalog version is checked first, so polling an unchanged catalog answers 304 without a query.
+    // JSON is copied from the catalog snapshot when it is current, otherwise the listing is streamed from the database.
+    // Declared with StreamingResponseBody as body type, only then Spring writes the body from the stream.
+    @GetMapping(params = {"!limit", "!cursor"})
+    public ResponseEntity<StreamingResponseBody> getAllProducts(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                WebRequest webRequest, HttpServletRequest request,
+                                                                HttpServletResponse response) throws IOException {
+        if (CatalogResponses.checkNotModified(catalogVersion, webRequest, response)) {
+            return null;
+        }
+        if (CatalogResponses.writeSnapshot(catalogSnapshotService.get(CatalogSnapshotService.PRODUCTS), request, response)) {
+            return null;
+        }
+        MediaType format = CatalogResponses.preferredFormat(accept);
+        ObjectMapper mapper = streamingMappers.get(format);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                productService.streamAllProducts(product -> {
+                    try {
+                        generator.writeObject(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(format).body(body);
+    }
+
+    // One keyset page, the nextCursor of a page requests the following one
     @GetMapping
-    public List<ProductsDTO> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<?> getProductsPage(@RequestParam(value = "limit", required = false) Integer limit,
+                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                             WebRequest webRequest, HttpServletResponse response) {
+        if (CatalogResponses.checkNotModified(catalogVersion, webRequest, response)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productReadCoalescer.getProductsPage(cursor, limit != null ? limit : DEFAULT_PAGE_SIZE));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public List<ProductsDTO> searchProducts(@RequestParam("q") String query,
+                                            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return productSearchIndex.search(query, Math.clamp(limit, 1, 100));
+    }
+
+    @GetMapping("/search/autocomplete")
+    public List<String> autocomplete(@RequestParam("prefix") String prefix,
+                                     @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return productSearchIndex.autocomplete(prefix, Math.clamp(limit, 1, 50));
+    }
+
+    // Combined filter on brand, category, size, color and stock with the match counts per value
+    @GetMapping("/facets")
+    public ResponseEntity<?> filterByFacets(@RequestParam(value = "brandId", required = false) Set<Long> brandIds,
+                                            @RequestParam(value = "categoryId", required = false) Set<Long> categoryIds,
+                                            @RequestParam(value = "sizeId", required = false) Set<Long> sizeIds,
+                                            @RequestParam(value = "colorId", required = false) Set<Long> colorIds,
+                                            @RequestParam(value = "inStock", defaultValue = "false") boolean inStock,
+                                            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(productFacetIndex.filter(
+                    orEmpty(brandIds), orEmpty(categoryIds), orEmpty(sizeIds), orEmpty(colorIds), inStock, Math.clamp(limit, 0, 500)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Price statistics from the in-memory summaries, for all products, a category with its subcategories, or a brand
+    @GetMapping("/price-stats")
+    public ResponseEntity<?> getPriceStatistics(@RequestParam(value = "categoryId", required = false) Long categoryId,
+                                                @RequestParam(value = "brandId", required = false) Long brandId,
+                                                @RequestParam(value = "percentiles", defaultValue = DEFAULT_PERCENTILES) List<Double> percentiles) {
+        try {
+            return ResponseEntity.ok(priceStatisticsService.getStatistics(categoryId, brandId, percentiles));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/price-stats/by-category")
+    public ResponseEntity<?> getPriceStatisticsByCategory(@RequestParam(value = "percentiles", defaultValue = DEFAULT_PERCENTILES) List<Double> percentiles) {
+        try {
+            return ResponseEntity.ok(priceStatisticsService.getStatisticsByCategory(percentiles));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/price-stats/by-brand")
+    public ResponseEntity<?> getPriceStatisticsByBrand(@RequestParam(value = "percentiles", defaultValue = DEFAULT_PERCENTILES) List<Double> percentiles) {
+        try {
+            return ResponseEntity.ok(priceStatisticsService.getStatisticsByBrand(percentiles));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Product and stock changes as server-sent events. Reconnecting clients resume after the Last-Event-ID they received
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                   @RequestParam(value = "after", required = false) Long after) {
+        return catalogEventPublisher.subscribe(lastEventId != null ? lastEventId : after);
     }
 
     @GetMapping("/{productCode}")
     public ResponseEntity<List<ProductOptionsGetDTO>> getOptionsForProduct(@PathVariable String productCode) {
-        List<ProductOptionsGetDTO> product = productService.getProductOptions(productCode);
+        List<ProductOptionsGetDTO> product = productDetailCache.getProductOptions(productCode);
         return ResponseEntity.ok(product);
     }
 
     @GetMapping("/filter-by-price")
-    public ResponseEntity<?> filterProductsbyPrice(@RequestParam(value = "Max Price", required = false) Double maxPrice) {
+    public ResponseEntity<?> filterProductsbyPrice(@RequestParam(value = "Min Price", required = false) Double minPrice,
+                                                   @RequestParam(value = "Max Price", required = false) Double maxPrice,
+                                                   @RequestParam(value = "Sort", defaultValue = "asc") String sort) {
         try {
-            List<ProductsDTO> filteredProducts = productService.filterProductsbyPrice(maxPrice);
+            List<ProductsDTO> filteredProducts = productReadCoalescer.filterProductsbyPrice(minPrice, maxPrice, sort);
             return ResponseEntity.ok(filteredProducts);
-        } catch (NegativePriceException ex) {
+        } catch (NegativePriceException | IllegalArgumentException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
                     "Error", ex.getMessage()));
         }
@@ -53,6 +225,16 @@ public class ProductController {
         }
     }
 
+    // Partial updates of many products, e.g. price changes and restocks, with one result per entry
+    @PutMapping("/batch")
+    public ResponseEntity<?> updateProducts(@RequestBody List<ProductsBatchUpdateDTO> updates) {
+        try {
+            return ResponseEntity.ok(productBatchUpdateService.updateProducts(updates));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody(required = false) ProductsUpdateDTO updatedProduct) {
         try {
@@ -60,6 +242,9 @@ public class ProductController {
             return ResponseEntity.ok(updatedProductEntity);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            // An option was changed since it was loaded, e.g. stock was reserved, nothing of the update was saved
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "The product was changed concurrently, retry the update."));
         }
     }
 
@@ -72,4 +257,21 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    // Bulk import, the body is streamed and saved in chunks. Rows that fail are listed in the report
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<?> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, HttpServletRequest request) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            ProductImportReportDTO report = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                    ? productImportService.importCsv(reader)
+                    : productImportService.importNdjson(reader);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static Set<Long> orEmpty(Set<Long> values) {
+        return values != null ? values : Set.of();
+    }
+}
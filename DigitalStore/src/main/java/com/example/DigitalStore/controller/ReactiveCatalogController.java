@@ -0,0 +1,82 @@
+package com.example.DigitalStore.controller;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.Service.NegativePriceException;
+import com.example.DigitalStore.Service.ReactiveProductService;
+import com.example.DigitalStore.model.Categories;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking read endpoints, enabled with reactive-datasource.url. No request thread waits for the database:
+ * the request is suspended until the driver delivers rows. Product lists are streamed as NDJSON by default,
+ * one product per line, and the next rows are requested from the database only when the previous ones are written,
+ * so a slow client holds back the cursor instead of filling the heap. With Accept: application/json they are
+ * collected and returned as one array, like the blocking endpoints. Options and reference data are small and
+ * always returned as one JSON document.
+ */
+@RestController
+@RequestMapping("/reactive")
+@ConditionalOnProperty("reactive-datasource.url")
+public class ReactiveCatalogController {
+
+    private final ReactiveProductService reactiveProductService;
+
+    public ReactiveCatalogController(ReactiveProductService reactiveProductService) {
+        this.reactiveProductService = reactiveProductService;
+    }
+
+    // Products ordered by id after afterId, all of them unless a limit is given
+    @GetMapping(value = "/products", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ProductsDTO> getProducts(@RequestParam(value = "afterId", required = false) Long afterId,
+                                         @RequestParam(value = "limit", required = false) Integer limit) {
+        return reactiveProductService.getProducts(afterId, limit);
+    }
+
+    @GetMapping(value = "/products/filter-by-price", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ProductsDTO> filterProductsByPrice(@RequestParam(value = "Min Price", required = false) Double minPrice,
+                                                   @RequestParam(value = "Max Price", required = false) Double maxPrice,
+                                                   @RequestParam(value = "Sort", defaultValue = "asc") String sort) throws NegativePriceException {
+        return reactiveProductService.filterProductsByPrice(minPrice, maxPrice, sort);
+    }
+
+    @GetMapping("/products/{productCode}")
+    public Mono<List<ProductOptionsGetDTO>> getOptionsForProduct(@PathVariable String productCode) {
+        return reactiveProductService.getProductOptions(productCode);
+    }
+
+    @GetMapping("/brands")
+    public Mono<Map<Long, String>> getBrands() {
+        return reactiveProductService.getBrandNames();
+    }
+
+    @GetMapping("/sizes")
+    public Mono<Map<Long, String>> getSizes() {
+        return reactiveProductService.getSizeNames();
+    }
+
+    @GetMapping("/colors")
+    public Mono<Map<Long, String>> getColors() {
+        return reactiveProductService.getColorNames();
+    }
+
+    @GetMapping("/categories")
+    public Mono<List<Categories>> getCategories() {
+        return reactiveProductService.getCategories();
+    }
+
+    // Invalid arguments are rejected before subscribing, a product that is not found arrives as an error of the Mono
+    @ExceptionHandler({IllegalArgumentException.class, NegativePriceException.class})
+    public ResponseEntity<Map<String, String>> handleInvalidRequest(Exception e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(Map.of("error", e.getMessage()));
+    }
+}
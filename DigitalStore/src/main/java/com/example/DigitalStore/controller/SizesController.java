@@ -1,30 +1,41 @@
 package com.example.DigitalStore.controller;
 
-import com.example.DigitalStore.model.Sizes;
-import com.example.DigitalStore.repository.SizesRepository;
+import com.example.DigitalStore.Service.CatalogSnapshotService;
+import com.example.DigitalStore.Service.CatalogVersion;
+import com.example.DigitalStore.Service.ReferenceDataRegistry;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/sizes")
 public class SizesController {
-    private final SizesRepository sizesRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final CatalogVersion catalogVersion;
+    private final CatalogSnapshotService catalogSnapshotService;
 
-    public SizesController(SizesRepository sizesRepository) {
-        this.sizesRepository = sizesRepository;
+    public SizesController(ReferenceDataRegistry referenceData, CatalogVersion catalogVersion,
+                           CatalogSnapshotService catalogSnapshotService) {
+        this.referenceData = referenceData;
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshotService = catalogSnapshotService;
     }
-    // Get endpoint to fetch all Sizes and its ids from the database
+    // Get endpoint to fetch all Sizes and its ids from the in-memory reference data
     @GetMapping
-    public Map<Long, String> getAllSizesAsMap() {
-        return sizesRepository.findAll().stream()
-                .collect(Collectors.toMap(
-                        Sizes::getId,       // Key
-                        Sizes::getSize // Value
-                ));
+    public Map<Long, String> getAllSizesAsMap(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (CatalogResponses.checkNotModified(catalogVersion, webRequest, response)) {
+            return null; // 304, the client copy is current
+        }
+        if (CatalogResponses.writeSnapshot(catalogSnapshotService.get(CatalogSnapshotService.SIZES), request, response)) {
+            return null; // written from the serialized snapshot
+        }
+        return referenceData.getSizeNames();
     }
 }
 
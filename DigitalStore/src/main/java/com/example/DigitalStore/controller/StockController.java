@@ -0,0 +1,57 @@
+package com.example.DigitalStore.controller;
+
+import com.example.DigitalStore.DTO.StockReservationDTO;
+import com.example.DigitalStore.DTO.StockReservationRequestDTO;
+import com.example.DigitalStore.Service.InsufficientStockException;
+import com.example.DigitalStore.Service.StockReservationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stock")
+public class StockController {
+
+    private final StockReservationService stockReservationService;
+
+    public StockController(StockReservationService stockReservationService) {
+        this.stockReservationService = stockReservationService;
+    }
+
+    // Reserves stock of one product option for a buyer, 409 when not enough is left
+    @PostMapping("/options/{optionId}/reservations")
+    public ResponseEntity<?> reserve(@PathVariable Long optionId, @RequestBody StockReservationRequestDTO request) {
+        try {
+            StockReservationDTO reservation = stockReservationService.reserve(optionId, request.quantity(), request.ttlSeconds());
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reservations/{id}/release")
+    public ResponseEntity<?> release(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(stockReservationService.release(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reservations/{id}/commit")
+    public ResponseEntity<?> commit(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(stockReservationService.commit(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
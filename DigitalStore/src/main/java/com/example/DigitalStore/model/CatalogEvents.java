@@ -0,0 +1,77 @@
+package com.example.DigitalStore.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Outbox of product changes, written in the transaction of the change itself.
+ * The id is the offset clients resume from, so it comes from an auto-increment column:
+ * ids then grow in insert order across all instances, unlike ranges taken from a pooled sequence.
+ */
+@Entity
+@Table(name = "catalog_events", indexes = @Index(name = "idx_catalog_events_created_at", columnList = "created_at"))
+public class CatalogEvents {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "type", nullable = false, length = 20)
+    private String type;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "product_code")
+    private String productCode;
+
+    @Column(name = "previous_product_code")
+    private String previousProductCode;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+    public void setProductCode(String productCode) {
+        this.productCode = productCode;
+    }
+
+    public String getPreviousProductCode() {
+        return previousProductCode;
+    }
+    public void setPreviousProductCode(String previousProductCode) {
+        this.previousProductCode = previousProductCode;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.DigitalStore.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * The version of the catalog shared by all instances, a single row counted up in the transaction of every catalog change.
+ * The row lock orders the changes, so the version moves exactly when a change commits, in commit order.
+ */
+@Entity
+@Table(name = "catalog_versions")
+public class CatalogVersions {
+
+    @Id
+    private Long id;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    // Tells versions of a recreated database apart from the ones clients may still have cached
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -2,7 +2,7 @@ package com.example.DigitalStore.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "categories")
+@Table(name = "Categories")
 public class Categories {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -3,7 +3,7 @@ package com.example.DigitalStore.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "colors")
+@Table(name = "Colors")
 public class Colors {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -5,11 +5,13 @@ import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
-@Table(name = "product_options")
+@Table(name = "Product_Options")
 public class ProductOptions {
 
+    // Ids are handed out from a pooled sequence so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_options_seq")
+    @SequenceGenerator(name = "product_options_seq", sequenceName = "product_options_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -29,6 +31,13 @@ public class ProductOptions {
     @Column(name = "stock_quantity")
     private Integer stockQuantity;
 
+    // Reservations change the stock with an UPDATE statement that also counts this up, so an update of the option
+    // loaded before a reservation fails instead of writing back the stock it loaded
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -64,4 +73,8 @@ public class ProductOptions {
     public void setStockQuantity(Integer stockQuantity) {
         this.stockQuantity = stockQuantity;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
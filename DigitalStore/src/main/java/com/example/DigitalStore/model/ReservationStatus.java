@@ -0,0 +1,8 @@
+package com.example.DigitalStore.model;
+
+public enum ReservationStatus {
+    RESERVED,   // stock is held for the buyer
+    COMMITTED,  // the purchase went through, the stock is gone for good
+    RELEASED,   // the buyer gave the stock back
+    EXPIRED     // the reservation timed out and the stock was given back
+}
@@ -3,7 +3,7 @@ package com.example.DigitalStore.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "sizes")
+@Table(name = "Sizes")
 public class Sizes {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
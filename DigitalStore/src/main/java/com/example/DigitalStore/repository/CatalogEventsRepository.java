@@ -0,0 +1,28 @@
+package com.example.DigitalStore.repository;
+
+import com.example.DigitalStore.DTO.CatalogEventDTO;
+import com.example.DigitalStore.model.CatalogEvents;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface CatalogEventsRepository extends JpaRepository<CatalogEvents, Long> {
+
+    // Committed events after the offset, oldest first
+    @Query("SELECT new com.example.DigitalStore.DTO.CatalogEventDTO(e.id, e.type, e.productId, e.productCode, e.previousProductCode, e.createdAt) " +
+            "FROM CatalogEvents e WHERE e.id > :afterId ORDER BY e.id")
+    List<CatalogEventDTO> findAfter(long afterId, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM CatalogEvents e")
+    long findLastId();
+
+    @Modifying
+    @Query("DELETE FROM CatalogEvents e WHERE e.createdAt < :createdBefore")
+    int deleteCreatedBefore(Instant createdBefore);
+}
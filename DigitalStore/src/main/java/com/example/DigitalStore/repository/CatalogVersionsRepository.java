@@ -0,0 +1,21 @@
+package com.example.DigitalStore.repository;
+
+import com.example.DigitalStore.model.CatalogVersions;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface CatalogVersionsRepository extends JpaRepository<CatalogVersions, Long> {
+
+    // Commits on its own, also when called after the commit of a change while its resources are still bound
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE CatalogVersions v SET v.version = v.version + 1, v.updatedAt = :updatedAt WHERE v.id = :id")
+    int increment(long id, Instant updatedAt);
+}
@@ -0,0 +1,32 @@
+package com.example.DigitalStore.repository;
+
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.model.ProductOptions;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductOptionsRepository extends JpaRepository<ProductOptions, Long> {
+
+    // Takes the stock only if enough is left, a single statement so concurrent buyers can never oversell.
+    // Counting up the version makes a concurrent update of the option through the entity fail, see ProductOptions
+    @Modifying
+    @Query("UPDATE ProductOptions o SET o.stockQuantity = o.stockQuantity - :quantity, o.version = o.version + 1 " +
+            "WHERE o.id = :optionId AND o.stockQuantity >= :quantity")
+    int decrementStock(Long optionId, int quantity);
+
+    @Modifying
+    @Query("UPDATE ProductOptions o SET o.stockQuantity = o.stockQuantity + :quantity, o.version = o.version + 1 WHERE o.id = :optionId")
+    int incrementStock(Long optionId, int quantity);
+
+    @Query("SELECT o.stockQuantity FROM ProductOptions o WHERE o.id = :optionId")
+    Optional<Integer> findStockQuantity(Long optionId);
+
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM ProductOptions o JOIN o.productId p WHERE o.id = :optionId")
+    Optional<ProductsDTO> findProductOfOption(Long optionId);
+}
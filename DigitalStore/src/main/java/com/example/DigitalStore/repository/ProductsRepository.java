@@ -1,9 +1,25 @@
 package com.example.DigitalStore.repository;
 
+import com.example.DigitalStore.DTO.ProductFacetRowDTO;
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductPriceRowDTO;
+import com.example.DigitalStore.DTO.ProductSearchDocumentDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
 import com.example.DigitalStore.model.Products;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
 
 @Repository
 public interface ProductsRepository extends JpaRepository<Products, Long> {
@@ -11,4 +27,96 @@ public interface ProductsRepository extends JpaRepository<Products, Long> {
     Products findByProductCode(String productCode);
 
     boolean existsByProductCode(String productCode);
-}
\ No newline at end of file
+
+    @Query("SELECT p.productCode FROM Products p WHERE p.productCode IN :productCodes")
+    Set<String> findExistingProductCodes(Collection<String> productCodes);
+
+    // Range scan on idx_products_price, mapped straight into DTOs without loading the entities
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM Products p WHERE p.price BETWEEN :minPrice AND :maxPrice")
+    List<ProductsDTO> findByPriceRange(Double minPrice, Double maxPrice, Sort sort);
+
+    // The price range without an upper bound
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM Products p WHERE p.price >= :minPrice")
+    List<ProductsDTO> findByMinPrice(Double minPrice, Sort sort);
+
+    // The price range without a lower bound
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM Products p WHERE p.price <= :maxPrice")
+    List<ProductsDTO> findByMaxPrice(Double maxPrice, Sort sort);
+
+    // The price range without any bound, every product
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM Products p")
+    List<ProductsDTO> findAllSorted(Sort sort);
+
+    // All products of a category subtree in one query on the category_id foreign key index
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM Products p WHERE p.categoryId.id IN :categoryIds ORDER BY p.id")
+    List<ProductsDTO> findByCategoryIds(Collection<Long> categoryIds);
+
+    // Keyset page: seeks on the primary key instead of skipping rows with OFFSET
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM Products p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductsDTO> findPageAfter(Long afterId, Limit limit);
+
+    // Forward-only cursor, rows are fetched from the server in chunks while the stream is consumed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM Products p ORDER BY p.id")
+    Stream<ProductsDTO> streamAllProducts();
+
+    // Options with their size and color in one round trip. A product without options yields a single row with a null id
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductOptionsGetDTO(o.id, COALESCE(s.size, 'Unknown Size'), COALESCE(c.color, 'Unknown Color'), o.stockQuantity) " +
+            "FROM Products p LEFT JOIN p.productOptions o LEFT JOIN o.size s LEFT JOIN o.color c " +
+            "WHERE p.productCode = :productCode ORDER BY o.id")
+    List<ProductOptionsGetDTO> findOptionsByProductCode(String productCode);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductSearchDocumentDTO(p.id, p.productCode, p.productName, p.description, p.price, b.brandName) " +
+            "FROM Products p JOIN p.brandId b ORDER BY p.id")
+    Stream<ProductSearchDocumentDTO> streamSearchDocuments();
+
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductSearchDocumentDTO(p.id, p.productCode, p.productName, p.description, p.price, b.brandName) " +
+            "FROM Products p JOIN p.brandId b WHERE p.id IN :ids")
+    List<ProductSearchDocumentDTO> findSearchDocuments(Collection<Long> ids);
+
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductsDTO(p.id, p.productCode, p.productName, p.description, p.price) " +
+            "FROM Products p WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductsDTO> findByIds(Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductFacetRowDTO(p.id, p.brandId.id, p.categoryId.id, s.id, c.id, o.stockQuantity) " +
+            "FROM Products p LEFT JOIN p.productOptions o LEFT JOIN o.size s LEFT JOIN o.color c ORDER BY p.id")
+    Stream<ProductFacetRowDTO> streamFacetRows();
+
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductFacetRowDTO(p.id, p.brandId.id, p.categoryId.id, s.id, c.id, o.stockQuantity) " +
+            "FROM Products p LEFT JOIN p.productOptions o LEFT JOIN o.size s LEFT JOIN o.color c WHERE p.id IN :productIds ORDER BY p.id")
+    List<ProductFacetRowDTO> findFacetRows(Collection<Long> productIds);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductPriceRowDTO(p.id, p.categoryId.id, p.brandId.id, p.price) FROM Products p")
+    Stream<ProductPriceRowDTO> streamPriceRows();
+
+    @Query("SELECT new com.example.DigitalStore.DTO.ProductPriceRowDTO(p.id, p.categoryId.id, p.brandId.id, p.price) " +
+            "FROM Products p WHERE p.id IN :productIds")
+    List<ProductPriceRowDTO> findPriceRows(Collection<Long> productIds);
+
+    // Products with category, brand and options (with size and color) in one query, for changing many products at once
+    @Query("SELECT DISTINCT p FROM Products p LEFT JOIN FETCH p.categoryId LEFT JOIN FETCH p.brandId " +
+            "LEFT JOIN FETCH p.productOptions o LEFT JOIN FETCH o.size LEFT JOIN FETCH o.color WHERE p.id IN :ids")
+    List<Products> findWithOptionsByIdIn(Collection<Long> ids);
+}
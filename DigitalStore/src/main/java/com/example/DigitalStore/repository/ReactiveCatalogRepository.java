@@ -0,0 +1,115 @@
+package com.example.DigitalStore.repository;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.model.Categories;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read queries of the /reactive endpoints over the non-blocking driver, the same queries as in
+ * {@link ProductsRepository} written in SQL. Rows are fetched as the subscriber requests them,
+ * so a slow client slows down the cursor instead of rows piling up in memory.
+ * Table names are written exactly as in database.sql, MariaDB on Linux compares them case-sensitively.
+ */
+@Repository
+@ConditionalOnProperty("reactive-datasource.url")
+public class ReactiveCatalogRepository {
+
+    // Rows per round trip for the queries that may return the whole table
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String PRODUCT_COLUMNS = "SELECT id, product_code, product_name, description, price FROM Products ";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCatalogRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // Keyset scan on the primary key, at most limit rows when the limit is given
+    public Flux<ProductsDTO> findProductsAfter(long afterId, Integer limit) {
+        return databaseClient.sql(PRODUCT_COLUMNS + "WHERE id > :afterId ORDER BY id" + (limit != null ? " LIMIT :limit" : ""))
+                .bind("afterId", afterId)
+                .bindValues(limit != null ? Map.of("limit", limit) : Map.of())
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveCatalogRepository::toProduct)
+                .all();
+    }
+
+    // Range scan on idx_products_price, a null bound is left out of the query
+    public Flux<ProductsDTO> findByPriceRange(Double minPrice, Double maxPrice, Sort.Direction direction) {
+        List<String> conditions = new ArrayList<>(2);
+        Map<String, Object> bounds = new HashMap<>();
+        if (minPrice != null) {
+            conditions.add("price >= :minPrice");
+            bounds.put("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            conditions.add("price <= :maxPrice");
+            bounds.put("maxPrice", maxPrice);
+        }
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+        return databaseClient.sql(PRODUCT_COLUMNS + where + "ORDER BY price " + direction.name() + ", id")
+                .bindValues(bounds)
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveCatalogRepository::toProduct)
+                .all();
+    }
+
+    // A product without options yields a single row with a null id, no row means there is no such product
+    public Flux<ProductOptionsGetDTO> findOptionsByProductCode(String productCode) {
+        return databaseClient.sql("SELECT o.id, COALESCE(s.size, 'Unknown Size') AS size, COALESCE(c.color, 'Unknown Color') AS color, o.stock_quantity " +
+                        "FROM Products p LEFT JOIN Product_Options o ON o.product_id = p.id " +
+                        "LEFT JOIN Sizes s ON s.id = o.size_id LEFT JOIN Colors c ON c.id = o.color_id " +
+                        "WHERE p.product_code = :productCode ORDER BY o.id")
+                .bind("productCode", productCode)
+                .map(row -> new ProductOptionsGetDTO(row.get("id", Long.class), row.get("size", String.class),
+                        row.get("color", String.class), row.get("stock_quantity", Integer.class)))
+                .all();
+    }
+
+    public Flux<Map.Entry<Long, String>> findBrandNames() {
+        return findNames("SELECT id, brand_name AS name FROM Brands ORDER BY id");
+    }
+
+    public Flux<Map.Entry<Long, String>> findSizeNames() {
+        return findNames("SELECT id, size AS name FROM Sizes ORDER BY id");
+    }
+
+    public Flux<Map.Entry<Long, String>> findColorNames() {
+        return findNames("SELECT id, color AS name FROM Colors ORDER BY id");
+    }
+
+    public Flux<Categories> findCategories() {
+        return databaseClient.sql("SELECT id, category_name, parent_id FROM Categories ORDER BY id")
+                .map(row -> {
+                    Categories category = new Categories();
+                    category.setId(row.get("id", Long.class));
+                    category.setCategoryName(row.get("category_name", String.class));
+                    category.setParentId(row.get("parent_id", Long.class));
+                    return category;
+                })
+                .all();
+    }
+
+    private Flux<Map.Entry<Long, String>> findNames(String sql) {
+        return databaseClient.sql(sql)
+                .map(row -> Map.entry(row.get("id", Long.class), row.get("name", String.class)))
+                .all();
+    }
+
+    private static ProductsDTO toProduct(Readable row) {
+        return new ProductsDTO(row.get("id", Long.class), row.get("product_code", String.class), row.get("product_name", String.class),
+                row.get("description", String.class), row.get("price", Double.class));
+    }
+}
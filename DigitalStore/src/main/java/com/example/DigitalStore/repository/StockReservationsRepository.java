@@ -0,0 +1,29 @@
+package com.example.DigitalStore.repository;
+
+import com.example.DigitalStore.model.ReservationStatus;
+import com.example.DigitalStore.model.StockReservations;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface StockReservationsRepository extends JpaRepository<StockReservations, Long> {
+
+    // Moves a reservation out of RESERVED, returns 0 when another request already did
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservations r SET r.status = :newStatus WHERE r.id = :id AND r.status = com.example.DigitalStore.model.ReservationStatus.RESERVED")
+    int finish(Long id, ReservationStatus newStatus);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservations r SET r.status = com.example.DigitalStore.model.ReservationStatus.COMMITTED " +
+            "WHERE r.id = :id AND r.status = com.example.DigitalStore.model.ReservationStatus.RESERVED AND (r.expiresAt IS NULL OR r.expiresAt > :now)")
+    int commit(Long id, Instant now);
+
+    @Query("SELECT r.id FROM StockReservations r WHERE r.status = com.example.DigitalStore.model.ReservationStatus.RESERVED AND r.expiresAt <= :now ORDER BY r.expiresAt")
+    List<Long> findExpiredIds(Instant now, Limit limit);
+}
@@ -1,6 +1,6 @@
 CREATE TABLE Categories (
-	id INT AUTO_INCREMENT PRIMARY KEY,
-	parent_id INT,
+	id BIGINT AUTO_INCREMENT PRIMARY KEY,
+	parent_id BIGINT,
 	category_name VARCHAR(255) NOT NULL,
 	FOREIGN KEY (parent_id) REFERENCES Categories(id)
 	);
@@ -23,7 +23,7 @@ VALUES
 SELECT * FROM Categories;
 
 CREATE TABLE Brands (
-    id INT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
     brand_name VARCHAR(100) NOT NULL UNIQUE
 );
 
@@ -34,17 +34,19 @@ SELECT * FROM Brands ORDER BY id ASC;
 
 
 CREATE TABLE Products (
-	id INT AUTO_INCREMENT PRIMARY KEY,
+	id BIGINT AUTO_INCREMENT PRIMARY KEY,
 	product_code VARCHAR(100) UNIQUE NOT NULL,
 	product_name VARCHAR(255) NOT NULL,
-	brand_id INT NOT NULL,
+	brand_id BIGINT NOT NULL,
 	description TEXT,
-	price DECIMAL(10,2) NOT NULL,
-	category_id INT NOT NULL,
+	price DOUBLE NOT NULL,
+	category_id BIGINT NOT NULL,
 	FOREIGN KEY (category_id) REFERENCES Categories(id),
 	FOREIGN KEY (brand_id) REFERENCES Brands(id)
 );
 
+CREATE INDEX idx_products_price ON Products (price);
+
 
 INSERT INTO Products (product_code, product_name, brand_id, description, price, category_id)
 VALUES
@@ -53,9 +55,12 @@ VALUES
 ('ABCD123', 'Water Bottle',3, '500ml stainless steel water bottle', 199.00, 3),
 ('ABC234', 'Sneakers', 2 , 'VL Court 3.0 mr Sneakers', 479.00 , 6);
 
+-- Product ids come from this sequence in blocks of 50, the first block starts after the seeded rows
+CREATE SEQUENCE products_seq START WITH 101 INCREMENT BY 50;
+
 
 CREATE TABLE Sizes (
-    id INT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
     size VARCHAR(50) NOT NULL UNIQUE
 );
 
@@ -69,7 +74,7 @@ VALUES ('NOSIZE') , ('ONESIZE'), ('XSMALL'), ('SMALL'), ('MEDIUM'), ('LARGE'), (
 SELECT * FROM Sizes ORDER BY id ASC;
 
 CREATE TABLE Colors (
-    id INT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
     color VARCHAR(50) NOT NULL UNIQUE
 );
 
@@ -82,11 +87,13 @@ VALUES ('Red'), ('Blue'), ('Black'), ('White'),
 SELECT * FROM Colors ORDER BY id ASC;
 
 CREATE TABLE Product_Options (
-    id INT AUTO_INCREMENT PRIMARY KEY,
-    product_id INT NOT NULL,
-    size_id INT,
-    color_id INT,
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    size_id BIGINT,
+    color_id BIGINT,
     stock_quantity INT NOT NULL,
+    -- Optimistic lock, counted up by every update including the stock changes of reservations
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (product_id) REFERENCES Products(id),
     FOREIGN KEY (size_id) REFERENCES Sizes(id),
     FOREIGN KEY (color_id) REFERENCES Colors(id)
@@ -105,6 +112,44 @@ VALUES
 (4, 26, 1, 12),
 (4, 27, 6, 8);
 
+-- Option ids come from this sequence in blocks of 50, the first block starts after the seeded rows
+CREATE SEQUENCE product_options_seq START WITH 101 INCREMENT BY 50;
+
+CREATE TABLE Stock_Reservations (
+    id BIGINT PRIMARY KEY,
+    option_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NULL,
+    FOREIGN KEY (option_id) REFERENCES Product_Options(id)
+);
+
+CREATE INDEX idx_stock_reservations_status_expires ON Stock_Reservations (status, expires_at);
 
+CREATE SEQUENCE stock_reservations_seq START WITH 1 INCREMENT BY 50;
 
+-- Outbox of product changes for GET /products/events. The auto-increment id is the offset clients resume from.
+-- No foreign key to Products, the event of a deleted product is kept
+CREATE TABLE catalog_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    product_id BIGINT NULL,
+    product_code VARCHAR(255) NULL,
+    previous_product_code VARCHAR(255) NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+-- Used by the retention cleanup
+CREATE INDEX idx_catalog_events_created_at ON catalog_events (created_at);
+
+-- Version of the catalog shared by all instances, used for the ETag and Last-Modified of the catalog endpoints
+CREATE TABLE catalog_versions (
+    id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
 
+INSERT INTO catalog_versions (id, version, created_at, updated_at) VALUES
+(1, 1, CURRENT_TIMESTAMP(0), CURRENT_TIMESTAMP(0));
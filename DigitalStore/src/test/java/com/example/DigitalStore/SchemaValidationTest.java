@@ -0,0 +1,33 @@
+package com.example.DigitalStore;
+
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The fast-startup profile validates the entities against database.sql instead of updating the schema,
+// so the script is loaded into H2 in MariaDB mode and Hibernate validates it the same way
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema-validation;MODE=MariaDB",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:database.sql",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "catalog-version.poll-interval=PT1H"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaValidationTest {
+
+    @Autowired
+    private ProductsRepository productsRepository;
+
+    @Test
+    void entitiesMatchTheSchemaScript() {
+        // The context only starts when validation passed, the seeded rows show the script ran
+        assertEquals("Football Shoes", productsRepository.findByProductCode("ABC123").getProductName());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.CatalogEventDTO;
+import com.example.DigitalStore.DTO.ProductsUpdateDTO;
+import com.example.DigitalStore.model.*;
+import com.example.DigitalStore.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional, so the update commits or rolls back together with its event as in the application
+@DataJpaTest(properties = "catalog-version.poll-interval=PT1H")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CatalogEventOutbox.class, ProductService.class, ReferenceDataRegistry.class, CatalogVersion.class})
+class CatalogEventOutboxTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductsRepository productsRepository;
+
+    @Autowired
+    private BrandsRepository brandsRepository;
+
+    @Autowired
+    private CategoriesRepository categoriesRepository;
+
+    @Autowired
+    private CatalogEventsRepository catalogEventsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Products product;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        String prefix = "OUTBOX-" + System.nanoTime() + "-";
+
+        Brands brand = new Brands();
+        brand.setBrandName(prefix + "Nike");
+        brand = brandsRepository.save(brand);
+
+        Categories category = new Categories();
+        category.setCategoryName("Shoes");
+        category = categoriesRepository.save(category);
+
+        product = new Products();
+        product.setProductCode(prefix + "P1");
+        product.setProductName("Shoe");
+        product.setPrice(100.0);
+        product.setBrandId(brand);
+        product.setCategoryId(category);
+        product = productsRepository.save(product);
+    }
+
+    @Test
+    void rolledBackUpdateLeavesNoEvent() {
+        long lastId = catalogEventsRepository.findLastId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.updateProduct(product.getId(), rename("Renamed"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(), eventsAfter(lastId));
+        assertEquals("Shoe", productsRepository.findById(product.getId()).orElseThrow().getProductName());
+    }
+
+    @Test
+    void committedUpdateLeavesOneEvent() {
+        long lastId = catalogEventsRepository.findLastId();
+
+        transactionTemplate.executeWithoutResult(status -> productService.updateProduct(product.getId(), rename("Renamed")));
+
+        List<CatalogEventDTO> events = eventsAfter(lastId);
+        assertEquals(1, events.size());
+        assertEquals(ProductChangedEvent.Type.UPDATED.name(), events.get(0).type());
+        assertEquals(product.getProductCode(), events.get(0).productCode());
+        assertEquals("Renamed", productsRepository.findById(product.getId()).orElseThrow().getProductName());
+    }
+
+    private static ProductsUpdateDTO rename(String productName) {
+        ProductsUpdateDTO update = new ProductsUpdateDTO();
+        update.setProductName(productName);
+        return update;
+    }
+
+    // Other tests share the database, so only the events of this product are compared
+    private List<CatalogEventDTO> eventsAfter(long lastId) {
+        return catalogEventsRepository.findAfter(lastId, Limit.unlimited()).stream()
+                .filter(event -> product.getId().equals(event.productId()))
+                .toList();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.CatalogEventDTO;
+import com.example.DigitalStore.repository.CatalogEventsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CatalogEventPublisherTest {
+
+    // Stands in for the catalog_events table
+    private final List<CatalogEventDTO> table = new CopyOnWriteArrayList<>();
+    private final CatalogEventsRepository repository = mock(CatalogEventsRepository.class);
+    private final CatalogEventPublisher publisher = new CatalogEventPublisher(repository, Duration.ofMillis(10), Duration.ofSeconds(1),
+            Duration.ofHours(1), 2, Duration.ofMinutes(1), 2, Duration.ofMillis(200));
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findLastId()).thenAnswer(invocation -> table.isEmpty() ? 0L : table.get(table.size() - 1).id());
+        when(repository.findAfter(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.<Limit>getArgument(1).max();
+            return table.stream().filter(event -> event.id() > afterId)
+                    .sorted(Comparator.comparing(CatalogEventDTO::id)).limit(limit).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void subscriberReceivesEventsWrittenLater() throws Exception {
+        write(1);
+        publisher.start();
+        RecordingEmitter emitter = new RecordingEmitter();
+        publisher.subscribe(emitter, 1L);
+
+        write(2);
+        write(3);
+
+        assertEquals(2L, emitter.next().id());
+        assertEquals(3L, emitter.next().id());
+    }
+
+    @Test
+    void subscriberResumesAfterItsLastEventIdFromTheTable() throws Exception {
+        for (long id = 1; id <= 5; id++) {
+            write(id);
+        }
+        publisher.start();
+        RecordingEmitter emitter = new RecordingEmitter();
+        // The buffer keeps two events, so 2 to 3 have to come from the table
+        publisher.subscribe(emitter, 1L);
+
+        List<Long> received = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            received.add(emitter.next().id());
+        }
+        assertEquals(List.of(2L, 3L, 4L, 5L), received);
+    }
+
+    @Test
+    void eventCommittedAfterOneWithAHigherIdIsNotSkipped() throws Exception {
+        // Fixed, the start may read it after the events below were written
+        when(repository.findLastId()).thenReturn(0L);
+        publisher.start();
+        RecordingEmitter emitter = new RecordingEmitter();
+        publisher.subscribe(emitter, 0L);
+
+        // 1 was taken first, but its transaction commits after the one of 2, with an older time
+        table.add(new CatalogEventDTO(2L, "UPDATED", 2L, "P2", null, Instant.now()));
+        assertNull(emitter.events.poll(200, TimeUnit.MILLISECONDS), "Published past the missing id");
+        table.add(new CatalogEventDTO(1L, "UPDATED", 1L, "P1", null, Instant.now().minusSeconds(60)));
+
+        assertEquals(1L, emitter.next().id());
+        assertEquals(2L, emitter.next().id());
+    }
+
+    @Test
+    void idOfARolledBackTransactionIsSkippedAfterTheGapTimeout() throws Exception {
+        write(1);
+        when(repository.findLastId()).thenReturn(1L);
+        publisher.start();
+        RecordingEmitter emitter = new RecordingEmitter();
+        publisher.subscribe(emitter, 1L);
+
+        write(3);
+        write(4);
+
+        assertEquals(3L, emitter.next().id());
+        assertEquals(4L, emitter.next().id());
+    }
+
+    @Test
+    void blockedSubscriberDoesNotDelayOthersAndIsCompletedWhenBehind() throws Exception {
+        publisher.start();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter blocked = new RecordingEmitter(release);
+        RecordingEmitter other = new RecordingEmitter();
+        publisher.subscribe(blocked, 0L);
+        publisher.subscribe(other, 0L);
+
+        for (long id = 1; id <= 5; id++) {
+            write(id);
+        }
+
+        for (long id = 1; id <= 5; id++) {
+            assertEquals(id, other.next().id());
+        }
+        assertTrue(blocked.completed.await(5, TimeUnit.SECONDS), "Subscriber behind was not completed");
+        assertFalse(other.completed.await(0, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    private void write(long id) {
+        table.add(new CatalogEventDTO(id, "UPDATED", id, "P" + id, null, Instant.now()));
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<CatalogEventDTO> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        // Sending blocks until released, as for a client that stopped reading
+        private final CountDownLatch sendable;
+
+        RecordingEmitter() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingEmitter(CountDownLatch sendable) {
+            this.sendable = sendable;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                sendable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            builder.build().stream()
+                    .filter(data -> data.getData() instanceof CatalogEventDTO)
+                    .forEach(data -> events.add((CatalogEventDTO) data.getData()));
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        CatalogEventDTO next() throws InterruptedException {
+            CatalogEventDTO event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "No event received");
+            return event;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogSnapshotServiceTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final ReferenceDataRegistry referenceData = mock(ReferenceDataRegistry.class);
+    private final CatalogVersion catalogVersion = InMemoryCatalogVersion.create();
+    // Disabled so nothing is scheduled in the background, the tests call rebuild themselves
+    private final CatalogSnapshotService snapshots = new CatalogSnapshotService(productService, referenceData, catalogVersion,
+            new ObjectMapper(), false, Duration.ZERO, DataSize.ofKilobytes(1));
+
+    @Test
+    void rebuildSerializesListingAndReferenceData() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<Consumer<ProductsDTO>>getArgument(0).accept(new ProductsDTO(1L, "P1", "Shoe", "Running shoe", 99.0));
+            return null;
+        }).when(productService).streamAllProducts(any());
+        when(referenceData.getBrandNames()).thenReturn(Map.of(1L, "Nike"));
+
+        snapshots.rebuild();
+
+        CatalogSnapshotService.Snapshot products = snapshots.get(CatalogSnapshotService.PRODUCTS).orElseThrow();
+        assertEquals("[{\"id\":1,\"productCode\":\"P1\",\"productName\":\"Shoe\",\"description\":\"Running shoe\",\"price\":99.0}]",
+                new String(products.json()));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(products.gzip()))) {
+            assertArrayEquals(products.json(), in.readAllBytes());
+        }
+        assertEquals("{\"1\":\"Nike\"}", new String(snapshots.get(CatalogSnapshotService.BRANDS).orElseThrow().json()));
+    }
+
+    @Test
+    void snapshotIsNotServedAfterTheCatalogChanged() {
+        snapshots.rebuild();
+        assertTrue(snapshots.get(CatalogSnapshotService.SIZES).isPresent());
+
+        catalogVersion.bump();
+
+        assertTrue(snapshots.get(CatalogSnapshotService.SIZES).isEmpty());
+    }
+
+    @Test
+    void stockChangeKeepsTheSnapshotCurrent() {
+        snapshots.rebuild();
+
+        ProductChangedEvent event = new ProductChangedEvent(ProductChangedEvent.Type.STOCK_CHANGED, 1L, "P1");
+        catalogVersion.countChange(event);
+        snapshots.onProductChanged(event);
+
+        assertTrue(snapshots.get(CatalogSnapshotService.PRODUCTS).isPresent());
+    }
+
+    @Test
+    void listingLargerThanTheMaximumIsNotKept() {
+        doAnswer(invocation -> {
+            for (long id = 1; id <= 100; id++) {
+                invocation.<Consumer<ProductsDTO>>getArgument(0).accept(new ProductsDTO(id, "P" + id, "Shoe", "Running shoe", 99.0));
+            }
+            return null;
+        }).when(productService).streamAllProducts(any());
+        when(referenceData.getBrandNames()).thenReturn(Map.of(1L, "Nike"));
+
+        snapshots.rebuild();
+
+        assertTrue(snapshots.get(CatalogSnapshotService.PRODUCTS).isEmpty());
+        assertTrue(snapshots.get(CatalogSnapshotService.BRANDS).isPresent());
+        // Built for this version, it is not rebuilt until the catalog changes
+        assertTrue(snapshots.isCurrent());
+    }
+}
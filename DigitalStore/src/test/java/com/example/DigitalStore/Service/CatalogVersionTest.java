@@ -0,0 +1,123 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.repository.CatalogVersionsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional, so the version is counted on commit as in the application
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(CatalogVersion.class)
+class CatalogVersionTest {
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private CatalogVersionsRepository catalogVersionsRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        catalogVersion.refresh();
+    }
+
+    @Test
+    void anotherInstanceSeesTheChangeAfterRefresh() {
+        CatalogVersion otherInstance = new CatalogVersion(catalogVersionsRepository);
+        otherInstance.refresh();
+        assertEquals(catalogVersion.eTag("json"), otherInstance.eTag("json"));
+
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(updated(1L)));
+        assertNotEquals(catalogVersion.eTag("json"), otherInstance.eTag("json"));
+
+        otherInstance.refresh();
+        assertEquals(catalogVersion.eTag("json"), otherInstance.eTag("json"));
+        assertEquals(catalogVersion.lastModified(), otherInstance.lastModified());
+    }
+
+    @Test
+    void transactionIsCountedOnceHoweverManyProductsItChanged() {
+        long before = catalogVersion.number();
+        TransactionTemplate otherWriter = new TransactionTemplate(transactionManager);
+        otherWriter.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(updated(1L));
+            eventPublisher.publishEvent(updated(2L));
+        });
+
+        assertEquals(before + 1, catalogVersion.number());
+    }
+
+    @Test
+    void writingTransactionDoesNotLockTheVersionRow() {
+        long before = catalogVersion.number();
+        TransactionTemplate otherWriter = new TransactionTemplate(transactionManager);
+        otherWriter.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(updated(1L));
+            // Runs after the listeners of the event, another writer counting its change must not wait for this one
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    otherWriter.executeWithoutResult(other -> catalogVersionsRepository.increment(1L, Instant.now()));
+                }
+            });
+        });
+
+        assertEquals(before + 2, catalogVersion.number());
+    }
+
+    @Test
+    void rolledBackChangeKeepsTheVersion() {
+        String eTag = catalogVersion.eTag("json");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(updated(1L));
+            status.setRollbackOnly();
+        });
+        catalogVersion.refresh();
+
+        assertEquals(eTag, catalogVersion.eTag("json"));
+    }
+
+    @Test
+    void stockChangeKeepsTheVersion() {
+        String eTag = catalogVersion.eTag("json");
+
+        transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.STOCK_CHANGED, 1L, "P1")));
+        catalogVersion.refresh();
+
+        assertEquals(eTag, catalogVersion.eTag("json"));
+    }
+
+    private static ProductChangedEvent updated(Long productId) {
+        return new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, productId, "P" + productId);
+    }
+}
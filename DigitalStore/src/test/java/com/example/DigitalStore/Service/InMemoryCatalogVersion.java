@@ -0,0 +1,38 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.model.CatalogVersions;
+import com.example.DigitalStore.repository.CatalogVersionsRepository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A CatalogVersion over a repository holding the row in memory, for tests without a database.
+ */
+public final class InMemoryCatalogVersion {
+
+    private InMemoryCatalogVersion() {
+    }
+
+    public static CatalogVersion create() {
+        CatalogVersions row = new CatalogVersions();
+        row.setId(1L);
+        row.setVersion(1);
+        row.setCreatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        row.setUpdatedAt(row.getCreatedAt());
+
+        CatalogVersionsRepository repository = mock(CatalogVersionsRepository.class);
+        when(repository.findById(anyLong())).thenAnswer(invocation -> Optional.of(row));
+        when(repository.increment(anyLong(), any())).thenAnswer(invocation -> {
+            row.setVersion(row.getVersion() + 1);
+            row.setUpdatedAt(invocation.getArgument(1));
+            return 1;
+        });
+        CatalogVersion catalogVersion = new CatalogVersion(repository);
+        catalogVersion.refresh();
+        return catalogVersion;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.PriceStatsDTO;
+import com.example.DigitalStore.DTO.ProductPriceRowDTO;
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PriceStatisticsServiceTest {
+
+    private static final long NIKE = 1L, ADIDAS = 2L;
+    private static final long SHOES = 10L, MEN_SHOES = 11L;
+    private static final List<Double> MEDIAN = List.of(50.0);
+
+    private final ProductsRepository productsRepository = mock(ProductsRepository.class);
+    private final ReferenceDataRegistry referenceData = mock(ReferenceDataRegistry.class);
+    private final PriceStatisticsService statistics = new PriceStatisticsService(productsRepository, referenceData, List.of(50.0, 100.0));
+
+    @BeforeEach
+    void setUp() {
+        when(productsRepository.streamPriceRows()).thenReturn(Stream.of(
+                new ProductPriceRowDTO(1L, MEN_SHOES, NIKE, 20.0),
+                new ProductPriceRowDTO(2L, MEN_SHOES, ADIDAS, 80.0),
+                new ProductPriceRowDTO(3L, SHOES, ADIDAS, 150.0)));
+        when(referenceData.getCategorySubtree(SHOES)).thenReturn(Set.of(SHOES, MEN_SHOES));
+        statistics.rebuild();
+    }
+
+    @Test
+    void statisticsCoverAllProductsAndBands() {
+        PriceStatsDTO all = statistics.getStatistics(null, null, MEDIAN);
+
+        assertEquals(3, all.count());
+        assertEquals(20.0, all.min());
+        assertEquals(150.0, all.max());
+        assertEquals(83.33, all.average());
+        assertEquals(80.0, all.percentiles().get("p50"), 0.8);
+        assertEquals(List.of(1L, 1L, 1L), all.bands().stream().map(PriceStatsDTO.PriceBand::count).toList());
+        assertNull(all.bands().get(2).to());
+    }
+
+    @Test
+    void categoryIncludesSubcategoriesAndBrandIsSeparate() {
+        assertEquals(3, statistics.getStatistics(SHOES, null, MEDIAN).count());
+        assertEquals(150.0, statistics.getStatistics(SHOES, null, MEDIAN).max());
+
+        PriceStatsDTO adidas = statistics.getStatistics(null, ADIDAS, MEDIAN);
+        assertEquals(2, adidas.count());
+        assertEquals(80.0, adidas.min());
+        assertEquals(2, statistics.getStatisticsByCategory(MEDIAN).size());
+    }
+
+    @Test
+    void priceChangeAndDeleteUpdateTheSummaries() {
+        when(productsRepository.findPriceRows(Set.of(2L))).thenReturn(List.of(new ProductPriceRowDTO(2L, MEN_SHOES, ADIDAS, 10.0)));
+        statistics.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 2L, "B"));
+        statistics.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 3L, "C"));
+
+        PriceStatsDTO all = statistics.getStatistics(null, null, MEDIAN);
+        assertEquals(2, all.count());
+        assertEquals(10.0, all.min());
+        assertEquals(20.0, all.max());
+        assertEquals(List.of(2L, 0L, 0L), all.bands().stream().map(PriceStatsDTO.PriceBand::count).toList());
+        assertEquals(1, statistics.getStatisticsByBrand(MEDIAN).get(ADIDAS).count());
+    }
+
+    @Test
+    void percentilesAreWithinOnePercent() {
+        when(productsRepository.streamPriceRows()).thenReturn(LongStream.rangeClosed(1, 1000)
+                .mapToObj(id -> new ProductPriceRowDTO(id, SHOES, NIKE, (double) id)));
+        statistics.rebuild();
+
+        PriceStatsDTO all = statistics.getStatistics(null, null, List.of(10.0, 90.0, 99.5));
+        assertEquals(100.0, all.percentiles().get("p10"), 1.0);
+        assertEquals(900.0, all.percentiles().get("p90"), 9.0);
+        assertEquals(995.0, all.percentiles().get("p99.5"), 9.95);
+        assertThrows(IllegalArgumentException.class, () -> statistics.getStatistics(null, null, List.of(101.0)));
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductBatchUpdateReportDTO;
+import com.example.DigitalStore.DTO.ProductOptionsDTO;
+import com.example.DigitalStore.DTO.ProductsBatchUpdateDTO;
+import com.example.DigitalStore.model.*;
+import com.example.DigitalStore.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Not transactional, so every chunk commits or rolls back on its own as in a real batch update.
+// The catalog version is not polled during the test, its query would be counted in the statistics
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "catalog-version.poll-interval=PT1H"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductBatchUpdateService.class, ProductService.class, ReferenceDataRegistry.class, CatalogVersion.class})
+class ProductBatchUpdateServiceTest {
+
+    @Autowired
+    private ProductBatchUpdateService productBatchUpdateService;
+
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Autowired
+    private ProductsRepository productsRepository;
+
+    @Autowired
+    private BrandsRepository brandsRepository;
+
+    @Autowired
+    private CategoriesRepository categoriesRepository;
+
+    @Autowired
+    private SizesRepository sizesRepository;
+
+    @Autowired
+    private ColorsRepository colorsRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String prefix;
+    private Brands brand;
+    private Categories category;
+    private Sizes size;
+    private Colors color;
+
+    @BeforeEach
+    void setUp() {
+        prefix = "BATCH-" + System.nanoTime() + "-";
+
+        brand = new Brands();
+        brand.setBrandName(prefix + "Nike");
+        brand = brandsRepository.save(brand);
+
+        category = new Categories();
+        category.setCategoryName("Shoes");
+        category = categoriesRepository.save(category);
+
+        size = new Sizes();
+        size.setSize(prefix + "42");
+        size = sizesRepository.save(size);
+
+        color = new Colors();
+        color.setColor(prefix + "Red");
+        color = colorsRepository.save(color);
+
+        referenceData.refresh();
+    }
+
+    @Test
+    void updatesManyProductsWithOneLoadQuery() {
+        List<Products> products = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            products.add(persistProduct(prefix + i, 2));
+        }
+
+        List<ProductsBatchUpdateDTO> batch = new ArrayList<>();
+        for (Products product : products) {
+            ProductsBatchUpdateDTO update = new ProductsBatchUpdateDTO();
+            update.setId(product.getId());
+            update.setPrice(50.0);
+            ProductOptionsDTO restock = new ProductOptionsDTO();
+            restock.setId(product.getProductOptions().get(0).getId());
+            restock.setStockQuantity(99);
+            update.setProductOptions(List.of(restock));
+            batch.add(update);
+        }
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        ProductBatchUpdateReportDTO report = productBatchUpdateService.updateProducts(batch);
+
+        assertEquals(20, report.updated());
+        assertEquals(0, report.failed());
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertEquals(40, statistics.getEntityUpdateCount());
+        // One load query and the batched updates of both tables, not one statement per product.
+        // After the commit the catalog version is counted up and read back, one statement each
+        assertTrue(statistics.getPrepareStatementCount() <= 5,
+                "Expected batched updates but got " + statistics.getPrepareStatementCount() + " statements");
+
+        Products updated = find(products.get(0).getId());
+        assertEquals(50.0, updated.getPrice());
+        assertEquals(99, updated.getProductOptions().get(0).getStockQuantity());
+    }
+
+    @Test
+    void failedEntriesAreReportedAndLeaveTheirProductUnchanged() {
+        Products valid = persistProduct(prefix + "VALID", 0);
+        Products invalid = persistProduct(prefix + "INVALID", 0);
+
+        ProductsBatchUpdateDTO validUpdate = new ProductsBatchUpdateDTO();
+        validUpdate.setId(valid.getId());
+        validUpdate.setProductName("Renamed");
+        ProductsBatchUpdateDTO invalidUpdate = new ProductsBatchUpdateDTO();
+        invalidUpdate.setId(invalid.getId());
+        invalidUpdate.setProductName("Renamed");
+        invalidUpdate.setBrandId(-1L);
+        ProductsBatchUpdateDTO missing = new ProductsBatchUpdateDTO();
+        missing.setId(-1L);
+
+        ProductBatchUpdateReportDTO report = productBatchUpdateService.updateProducts(List.of(validUpdate, invalidUpdate, missing, validUpdate));
+
+        assertEquals(1, report.updated());
+        assertEquals(3, report.failed());
+        assertTrue(report.results().get(0).updated());
+        assertEquals("Invalid brand ID.", report.results().get(1).error());
+        assertEquals("Product not found.", report.results().get(2).error());
+        assertEquals("Product appears more than once in the batch.", report.results().get(3).error());
+        assertEquals("Renamed", find(valid.getId()).getProductName());
+        assertEquals("Product " + prefix + "INVALID", find(invalid.getId()).getProductName());
+    }
+
+    @Test
+    void chunkThatFailsToCommitSavesNoneOfItsEntries() {
+        Products first = persistProduct(prefix + "FIRST", 0);
+        Products second = persistProduct(prefix + "SECOND", 0);
+
+        ProductsBatchUpdateDTO rename = new ProductsBatchUpdateDTO();
+        rename.setId(first.getId());
+        rename.setProductName("Renamed");
+        // Valid on its own, but the unique product code fails the flush of the chunk
+        ProductsBatchUpdateDTO duplicateCode = new ProductsBatchUpdateDTO();
+        duplicateCode.setId(second.getId());
+        duplicateCode.setProductCode(first.getProductCode());
+
+        ProductBatchUpdateReportDTO report = productBatchUpdateService.updateProducts(List.of(rename, duplicateCode));
+
+        assertEquals(0, report.updated());
+        assertEquals(2, report.failed());
+        assertTrue(report.results().get(0).error().startsWith("Chunk rolled back: "));
+        assertTrue(report.results().get(1).error().startsWith("Chunk rolled back: "));
+        assertEquals("Product " + prefix + "FIRST", find(first.getId()).getProductName());
+        assertEquals(prefix + "SECOND", find(second.getId()).getProductCode());
+    }
+
+    @Test
+    void chunkWhoseProductsCannotBeLoadedIsReportedAsRolledBack() {
+        ProductsRepository failingRepository = mock(ProductsRepository.class);
+        when(failingRepository.findWithOptionsByIdIn(any())).thenThrow(new QueryTimeoutException("Query timed out"));
+        ProductBatchUpdateService service = new ProductBatchUpdateService(productService, failingRepository, entityManager,
+                transactionManager, eventPublisher, 2);
+        ProductsBatchUpdateDTO first = new ProductsBatchUpdateDTO();
+        first.setId(1L);
+        ProductsBatchUpdateDTO second = new ProductsBatchUpdateDTO();
+        second.setId(2L);
+        ProductsBatchUpdateDTO withoutId = new ProductsBatchUpdateDTO();
+
+        ProductBatchUpdateReportDTO report = service.updateProducts(List.of(first, second, withoutId));
+
+        assertEquals(0, report.updated());
+        assertEquals(3, report.failed());
+        assertEquals("Chunk rolled back: Query timed out", report.results().get(0).error());
+        assertEquals("Chunk rolled back: Query timed out", report.results().get(1).error());
+        assertEquals("Product id must be provided.", report.results().get(2).error());
+    }
+
+    private Products persistProduct(String productCode, int options) {
+        Products product = new Products();
+        product.setProductCode(productCode);
+        product.setProductName("Product " + productCode);
+        product.setPrice(100.0);
+        product.setBrandId(brand);
+        product.setCategoryId(category);
+        for (int i = 0; i < options; i++) {
+            ProductOptions option = new ProductOptions();
+            option.setProductId(product);
+            option.setSize(size);
+            option.setColor(color);
+            option.setStockQuantity(i);
+            product.getProductOptions().add(option);
+        }
+        return productsRepository.save(product);
+    }
+
+    // Loads the product with its options, there is no session to load them lazily
+    private Products find(Long id) {
+        return productsRepository.findWithOptionsByIdIn(List.of(id)).get(0);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
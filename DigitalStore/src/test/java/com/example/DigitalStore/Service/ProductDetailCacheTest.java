@@ -0,0 +1,120 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductDetailCacheTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProductDetailCache cache = new ProductDetailCache(productService, meterRegistry, 100, Duration.ofMinutes(10));
+
+    @Test
+    void secondReadIsServedFromCache() {
+        when(productService.getProductOptions("P1")).thenReturn(List.of(option(5)));
+
+        cache.getProductOptions("P1");
+        cache.getProductOptions("P1");
+
+        verify(productService, times(1)).getProductOptions("P1");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "productDetails").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "productDetails").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productService.getProductOptions("P1")).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(option(5));
+        });
+
+        CompletableFuture<List<ProductOptionsGetDTO>> first = CompletableFuture.supplyAsync(() -> cache.getProductOptions("P1"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<ProductOptionsGetDTO>> second = CompletableFuture.supplyAsync(() -> cache.getProductOptions("P1"));
+        while (meterRegistry.get("reads.coalescing").tag("outcome", "coalesced").counter().count() == 0 && !second.isDone()) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(productService, times(1)).getProductOptions("P1");
+        assertEquals(1.0, meterRegistry.get("reads.coalescing").tag("query", "product-options").tag("outcome", "loaded").counter().count());
+        assertEquals(1.0, meterRegistry.get("reads.coalescing").tag("query", "product-options").tag("outcome", "coalesced").counter().count());
+    }
+
+    @Test
+    void committedChangeInvalidatesOldAndNewProductCode() {
+        when(productService.getProductOptions("OLD")).thenReturn(List.of(option(5)));
+        when(productService.getProductOptions("NEW")).thenReturn(List.of(option(3)));
+        cache.getProductOptions("OLD");
+        cache.getProductOptions("NEW");
+
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, "NEW", "OLD"));
+        cache.getProductOptions("OLD");
+        cache.getProductOptions("NEW");
+
+        verify(productService, times(2)).getProductOptions("OLD");
+        verify(productService, times(2)).getProductOptions("NEW");
+    }
+
+    @Test
+    void unknownProductIsNotCached() {
+        when(productService.getProductOptions("NONE")).thenThrow(new IllegalArgumentException("not found"));
+
+        assertThrows(IllegalArgumentException.class, () -> cache.getProductOptions("NONE"));
+        assertThrows(IllegalArgumentException.class, () -> cache.getProductOptions("NONE"));
+
+        verify(productService, times(2)).getProductOptions("NONE");
+    }
+
+    @Test
+    void loadFailingWithAnErrorIsNotKept() {
+        when(productService.getProductOptions("P1"))
+                .thenThrow(new StackOverflowError())
+                .thenReturn(List.of(option(5)));
+
+        assertThrows(StackOverflowError.class, () -> cache.getProductOptions("P1"));
+
+        assertEquals(5, cache.getProductOptions("P1").get(0).getStockQuantity());
+    }
+
+    @Test
+    void loadRunningDuringCommitIsNotKeptAfterInvalidation() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        when(productService.getProductOptions("P1"))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    committed.await(5, TimeUnit.SECONDS);
+                    return List.of(option(5)); // read before the commit
+                })
+                .thenReturn(List.of(option(4)));
+
+        CompletableFuture<List<ProductOptionsGetDTO>> staleRead = CompletableFuture.supplyAsync(() -> cache.getProductOptions("P1"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> invalidation = CompletableFuture.runAsync(() ->
+                cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.STOCK_CHANGED, 1L, "P1")));
+        committed.countDown();
+        staleRead.get(5, TimeUnit.SECONDS);
+        invalidation.get(5, TimeUnit.SECONDS);
+
+        assertEquals(4, cache.getProductOptions("P1").get(0).getStockQuantity());
+    }
+
+    private static ProductOptionsGetDTO option(int stock) {
+        return new ProductOptionsGetDTO(1L, "M", "Red", stock);
+    }
+}
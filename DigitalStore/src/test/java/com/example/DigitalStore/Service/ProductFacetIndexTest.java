@@ -0,0 +1,93 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.FacetResultDTO;
+import com.example.DigitalStore.DTO.ProductFacetRowDTO;
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ProductFacetIndexTest {
+
+    private static final long NIKE = 1L, ADIDAS = 2L;
+    private static final long SHOES = 10L, MEN_SHOES = 11L;
+    private static final long SIZE_40 = 30L, SIZE_41 = 31L;
+    private static final long RED = 1L, BLUE = 2L;
+
+    private final ProductsRepository productsRepository = mock(ProductsRepository.class);
+    private final ReferenceDataRegistry referenceData = mock(ReferenceDataRegistry.class);
+    private final ProductFacetIndex index = new ProductFacetIndex(productsRepository, referenceData);
+
+    @BeforeEach
+    void setUp() {
+        when(productsRepository.streamFacetRows()).thenReturn(Stream.of(
+                new ProductFacetRowDTO(1L, NIKE, MEN_SHOES, SIZE_40, RED, 5),
+                new ProductFacetRowDTO(1L, NIKE, MEN_SHOES, SIZE_41, BLUE, 0),
+                new ProductFacetRowDTO(2L, ADIDAS, MEN_SHOES, SIZE_41, RED, 0),
+                new ProductFacetRowDTO(3L, ADIDAS, SHOES, null, null, null)));
+        when(productsRepository.findByIds(anyCollection())).thenReturn(List.of());
+        when(referenceData.getCategorySubtree(SHOES)).thenReturn(Set.of(SHOES, MEN_SHOES));
+        when(referenceData.getCategorySubtree(MEN_SHOES)).thenReturn(Set.of(MEN_SHOES));
+        index.rebuild();
+    }
+
+    @Test
+    void filterCombinesAttributesAndCountsOtherValues() {
+        FacetResultDTO result = index.filter(Set.of(), Set.of(SHOES), Set.of(SIZE_41), Set.of(), false, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(Map.of(NIKE, 1, ADIDAS, 1), result.facets().get("brand"));
+        // counted as if another size were selected instead of 41
+        assertEquals(Map.of(SIZE_40, 1, SIZE_41, 2), result.facets().get("size"));
+        // both options in size 41 are sold out
+        assertEquals(0, result.inStockCount());
+        verify(productsRepository).findByIds(List.of(1L, 2L));
+    }
+
+    @Test
+    void inStockFilterLeavesOutProductsWithoutStock() {
+        FacetResultDTO result = index.filter(Set.of(ADIDAS, NIKE), Set.of(), Set.of(), Set.of(), true, 10);
+
+        assertEquals(1, result.total());
+        assertEquals(Map.of(NIKE, 1), result.facets().get("brand"));
+    }
+
+    @Test
+    void sizeColorAndStockMustHoldForTheSameOption() {
+        // Product 1 is in stock only in size 40, and red only in size 40
+        assertEquals(0, index.filter(Set.of(), Set.of(), Set.of(SIZE_41), Set.of(), true, 10).total());
+
+        FacetResultDTO result = index.filter(Set.of(), Set.of(), Set.of(SIZE_41), Set.of(RED), false, 10);
+
+        assertEquals(1, result.total());
+        assertEquals(Map.of(ADIDAS, 1), result.facets().get("brand"));
+        assertEquals(Map.of(SIZE_40, 1, SIZE_41, 1), result.facets().get("size"));
+        assertEquals(Map.of(RED, 1, BLUE, 1), result.facets().get("color"));
+        verify(productsRepository).findByIds(List.of(2L));
+    }
+
+    @Test
+    void productCountsOnceForAValueOfSeveralOfItsOptions() {
+        when(productsRepository.streamFacetRows()).thenReturn(Stream.of(
+                new ProductFacetRowDTO(1L, NIKE, MEN_SHOES, SIZE_40, RED, 5),
+                new ProductFacetRowDTO(1L, NIKE, MEN_SHOES, SIZE_40, BLUE, 5),
+                new ProductFacetRowDTO(1L, NIKE, MEN_SHOES, SIZE_41, BLUE, 0),
+                new ProductFacetRowDTO(2L, ADIDAS, MEN_SHOES, SIZE_40, RED, 1)));
+        index.rebuild();
+
+        FacetResultDTO result = index.filter(Set.of(), Set.of(), Set.of(), Set.of(BLUE), true, 10);
+
+        assertEquals(1, result.total());
+        // Only the blue option in stock counts, the sold out size 41 does not
+        assertEquals(Map.of(SIZE_40, 1), result.facets().get("size"));
+        assertEquals(Map.of(RED, 2, BLUE, 1), result.facets().get("color"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.FacetResultDTO;
+import com.example.DigitalStore.DTO.ProductOptionsDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.DTO.ProductsUpdateDTO;
+import com.example.DigitalStore.model.*;
+import com.example.DigitalStore.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional, so the index sees the changes only when the service's transaction commits, as in the application
+@DataJpaTest(properties = "catalog-version.poll-interval=PT1H")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductFacetIndex.class, ProductService.class, StockReservationService.class, ReferenceDataRegistry.class, CatalogVersion.class})
+class ProductFacetIndexTransactionTest {
+
+    private static final int INITIAL_STOCK = 5;
+
+    @Autowired
+    private ProductFacetIndex index;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Autowired
+    private BrandsRepository brandsRepository;
+
+    @Autowired
+    private CategoriesRepository categoriesRepository;
+
+    @Autowired
+    private SizesRepository sizesRepository;
+
+    @Autowired
+    private ColorsRepository colorsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Long brandId;
+    private Long otherBrandId;
+    private Long sizeId;
+    private Products product;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        String prefix = "FACET-" + System.nanoTime() + "-";
+
+        brandId = brandsRepository.save(brand(prefix + "Nike")).getId();
+        otherBrandId = brandsRepository.save(brand(prefix + "Adidas")).getId();
+        Categories category = new Categories();
+        category.setCategoryName("Shoes");
+        Long categoryId = categoriesRepository.save(category).getId();
+        Sizes size = new Sizes();
+        size.setSize(prefix + "42");
+        sizeId = sizesRepository.save(size).getId();
+        Colors color = new Colors();
+        color.setColor(prefix + "Red");
+        Long colorId = colorsRepository.save(color).getId();
+        referenceData.refresh();
+        index.rebuild();
+
+        ProductsUpdateDTO newProduct = new ProductsUpdateDTO();
+        newProduct.setProductCode(prefix + "P1");
+        newProduct.setProductName("Shoe");
+        newProduct.setPrice(100.0);
+        newProduct.setBrandId(brandId);
+        newProduct.setCategoryId(categoryId);
+        ProductOptionsDTO option = new ProductOptionsDTO();
+        option.setSizeId(sizeId);
+        option.setColorId(colorId);
+        option.setStockQuantity(INITIAL_STOCK);
+        newProduct.setProductOptions(List.of(option));
+        product = transactionTemplate.execute(status -> productService.createProduct(newProduct));
+    }
+
+    @Test
+    void committedUpdateIsAppliedToTheIndex() {
+        transactionTemplate.executeWithoutResult(status -> productService.updateProduct(product.getId(), changeBrand(otherBrandId)));
+
+        assertEquals(0, filterByBrand(brandId, false).total());
+        assertEquals(List.of(product.getId()), filterByBrand(otherBrandId, false).products().stream().map(ProductsDTO::id).toList());
+    }
+
+    @Test
+    void rolledBackUpdateLeavesTheIndexUnchanged() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.updateProduct(product.getId(), changeBrand(otherBrandId));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1, filterByBrand(brandId, false).total());
+        assertEquals(0, filterByBrand(otherBrandId, false).total());
+    }
+
+    @Test
+    void stockChangesMoveTheProductInAndOutOfTheInStockFilter() throws InsufficientStockException {
+        Long optionId = product.getProductOptions().get(0).getId();
+        assertEquals(1, filterByBrand(brandId, true).total());
+
+        Long reservationId = stockReservationService.reserve(optionId, INITIAL_STOCK, null).id();
+
+        FacetResultDTO soldOut = filterByBrand(brandId, true);
+        assertEquals(0, soldOut.total());
+        assertEquals(1, filterByBrand(brandId, false).total());
+
+        stockReservationService.release(reservationId);
+
+        FacetResultDTO inStock = filterByBrand(brandId, true);
+        assertEquals(1, inStock.total());
+        assertEquals(Map.of(sizeId, 1), inStock.facets().get("size"));
+    }
+
+    // Other tests share the database, so the filter is narrowed to a brand of this test
+    private FacetResultDTO filterByBrand(Long brand, boolean inStock) {
+        return index.filter(Set.of(brand), Set.of(), Set.of(), Set.of(), inStock, 10);
+    }
+
+    private static Brands brand(String brandName) {
+        Brands brand = new Brands();
+        brand.setBrandName(brandName);
+        return brand;
+    }
+
+    private static ProductsUpdateDTO changeBrand(Long brandId) {
+        ProductsUpdateDTO update = new ProductsUpdateDTO();
+        update.setBrandId(brandId);
+        return update;
+    }
+}
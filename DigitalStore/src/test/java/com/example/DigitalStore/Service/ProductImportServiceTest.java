@@ -0,0 +1,208 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductImportReportDTO;
+import com.example.DigitalStore.DTO.ProductImportReportDTO.RowError;
+import com.example.DigitalStore.model.Brands;
+import com.example.DigitalStore.model.Categories;
+import com.example.DigitalStore.repository.BrandsRepository;
+import com.example.DigitalStore.repository.CategoriesRepository;
+import com.example.DigitalStore.repository.ProductsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional, so every chunk commits or rolls back on its own as in a real import
+@DataJpaTest(properties = {"product-import.chunk-size=2", "catalog-version.poll-interval=PT1H"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductImportService.class, ProductService.class, ReferenceDataRegistry.class, CatalogVersion.class, ObjectMapper.class,
+        ProductImportServiceTest.BrokenProductListener.class})
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Autowired
+    private ProductsRepository productsRepository;
+
+    @Autowired
+    private BrandsRepository brandsRepository;
+
+    @Autowired
+    private CategoriesRepository categoriesRepository;
+
+    private Long brandId;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        Brands brand = new Brands();
+        brand.setBrandName("Brand " + System.nanoTime());
+        brandId = brandsRepository.save(brand).getId();
+        Categories category = new Categories();
+        category.setCategoryName("Shoes");
+        categoryId = categoriesRepository.save(category).getId();
+        referenceData.refresh();
+    }
+
+    @Test
+    void rowsWithoutRequiredFieldsFailAloneAndTheRestOfTheChunkIsSaved() throws Exception {
+        String prefix = "IMP-" + System.nanoTime() + "-";
+        String ndjson = String.join("\n",
+                product(prefix + "1", "\"Shoe\"", "49.0"),
+                product(prefix + "2", "null", "49.0"),
+                product(prefix + "3", "\"Sock\"", "null"),
+                "null",
+                product(prefix + "4", "\"Cap\"", "19.0"));
+
+        ProductImportReportDTO report = productImportService.importNdjson(new BufferedReader(new StringReader(ndjson)));
+
+        assertEquals(2, report.imported());
+        assertEquals(3, report.failed());
+        Map<Long, String> errors = report.errors().stream().collect(Collectors.toMap(RowError::line, RowError::error));
+        assertEquals(Map.of(
+                2L, "All fields (productCode, productName, price) must be provided.",
+                3L, "All fields (productCode, productName, price) must be provided.",
+                4L, "Line must be a JSON object."), errors);
+        assertTrue(productsRepository.existsByProductCode(prefix + "1"));
+        assertTrue(productsRepository.existsByProductCode(prefix + "4"));
+        assertFalse(productsRepository.existsByProductCode(prefix + "2"));
+    }
+
+    @Test
+    void failedChunkRollsBackAloneAndEarlierChunksStayCommitted() throws Exception {
+        String prefix = "IMP-" + System.nanoTime() + "-";
+        String ndjson = String.join("\n",
+                product(prefix + "1", "\"Shoe\"", "49.0"),
+                product(prefix + "2", "\"Sock\"", "9.0"),
+                product(prefix + "3", "\"Cap\"", "19.0"),
+                product(prefix + "4" + BrokenProductListener.SUFFIX, "\"Scarf\"", "29.0"),
+                product(prefix + "5", "\"Belt\"", "39.0"));
+
+        ProductImportReportDTO report = productImportService.importNdjson(new BufferedReader(new StringReader(ndjson)));
+
+        assertEquals(3, report.imported());
+        assertEquals(2, report.failed());
+        Map<Long, String> errors = report.errors().stream().collect(Collectors.toMap(RowError::line, RowError::error));
+        assertEquals(Map.of(
+                3L, "Chunk rolled back: Listener failed.",
+                4L, "Chunk rolled back: Listener failed."), errors);
+        assertTrue(productsRepository.existsByProductCode(prefix + "1"));
+        assertTrue(productsRepository.existsByProductCode(prefix + "2"));
+        assertFalse(productsRepository.existsByProductCode(prefix + "3"));
+        assertTrue(productsRepository.existsByProductCode(prefix + "5"));
+    }
+
+    @Test
+    void duplicateCodesFailInTheChunkAndAgainstTheDatabase() throws Exception {
+        String prefix = "IMP-" + System.nanoTime() + "-";
+        productImportService.importNdjson(new BufferedReader(new StringReader(product(prefix + "1", "\"Shoe\"", "49.0"))));
+        String ndjson = String.join("\n",
+                product(prefix + "1", "\"Other shoe\"", "59.0"),
+                product(prefix + "2", "\"Sock\"", "9.0"),
+                product(prefix + "2", "\"Other sock\"", "19.0"));
+
+        ProductImportReportDTO report = productImportService.importNdjson(new BufferedReader(new StringReader(ndjson)));
+
+        assertEquals(1, report.imported());
+        assertEquals(List.of(
+                new RowError(1, prefix + "1", "Product code already exists."),
+                new RowError(3, prefix + "2", "Product code already exists.")), report.errors());
+        assertEquals("Shoe", productsRepository.findByProductCode(prefix + "1").getProductName());
+        assertEquals("Sock", productsRepository.findByProductCode(prefix + "2").getProductName());
+    }
+
+    @Test
+    void rowRejectedByTheDatabaseFailsAloneAndTheRestOfItsChunkIsSaved() throws Exception {
+        String prefix = "IMP-" + System.nanoTime() + "-";
+        String tooLong = "x".repeat(300);
+        String ndjson = String.join("\n",
+                product(prefix + "1", "\"Shoe\"", "49.0"),
+                """
+                {"productCode": "%s", "productName": "Sock", "description": "%s", "price": 9.0, "categoryId": %d, "brandId": %d}"""
+                        .formatted(prefix + "2", tooLong, categoryId, brandId));
+
+        ProductImportReportDTO report = productImportService.importNdjson(new BufferedReader(new StringReader(ndjson)));
+
+        assertEquals(1, report.imported());
+        assertEquals(1, report.failed());
+        assertEquals(2, report.errors().get(0).line());
+        assertTrue(report.errors().get(0).error().startsWith("Rejected by the database: "));
+        assertTrue(productsRepository.existsByProductCode(prefix + "1"));
+        assertFalse(productsRepository.existsByProductCode(prefix + "2"));
+    }
+
+    @Test
+    void onlyTheFirstErrorsAreReported() throws Exception {
+        String ndjson = "null\n".repeat(1001);
+
+        ProductImportReportDTO report = productImportService.importNdjson(new BufferedReader(new StringReader(ndjson)));
+
+        assertEquals(0, report.imported());
+        assertEquals(1001, report.failed());
+        assertEquals(1000, report.errors().size());
+        assertTrue(report.errorsTruncated());
+    }
+
+    @Test
+    void csvValuesMayBeQuotedAndContainCommasAndQuotes() throws Exception {
+        assertEquals(List.of("a", "b, c", "say \"hi\"", ""), ProductImportService.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+        assertThrows(IllegalArgumentException.class, () -> ProductImportService.parseCsvLine("a,\"b"));
+
+        String productCode = "IMP-" + System.nanoTime();
+        String csv = String.join("\n",
+                "productCode,productName,description,price,categoryId,brandId,options",
+                "%s,\"Shoe, \"\"red\"\"\",\"Light, fast\",49.0,%d,%d,".formatted(productCode, categoryId, brandId),
+                "%s-2,Sock,,9.0,%d".formatted(productCode, categoryId));
+
+        ProductImportReportDTO report = productImportService.importCsv(new BufferedReader(new StringReader(csv)));
+
+        assertEquals(1, report.imported());
+        assertEquals(List.of(new RowError(3, null, "Expected 7 columns but found 5.")), report.errors());
+        assertEquals("Shoe, \"red\"", productsRepository.findByProductCode(productCode).getProductName());
+        assertEquals("Light, fast", productsRepository.findByProductCode(productCode).getDescription());
+    }
+
+    @Test
+    void csvWithAnotherHeaderIsRejected() {
+        String csv = "productCode,name,description,price,categoryId,brandId,options\nP1,Shoe,,49.0,1,1,";
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> productImportService.importCsv(new BufferedReader(new StringReader(csv))));
+        assertEquals("CSV header must be: productCode,productName,description,price,categoryId,brandId,options", e.getMessage());
+    }
+
+    private String product(String productCode, String productName, String price) {
+        return """
+                {"productCode": "%s", "productName": %s, "price": %s, "categoryId": %d, "brandId": %d}"""
+                .formatted(productCode, productName, price, categoryId, brandId);
+    }
+
+    // Fails the transaction of the chunk that saves a product with the suffix
+    static class BrokenProductListener {
+        static final String SUFFIX = "-BROKEN";
+
+        @EventListener
+        void onProductChanged(ProductChangedEvent event) {
+            if (event.productCode().endsWith(SUFFIX)) {
+                throw new IllegalStateException("Listener failed.");
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductsPageDTO;
+import com.example.DigitalStore.config.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductReadCoalescerTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProductReadCoalescer coalescer = new ProductReadCoalescer(productService, meterRegistry);
+
+    @Test
+    void callPinnedToThePrimaryDoesNotJoinALoadFromTheReplica() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productService.getProductsPage(null, 10)).thenAnswer(invocation -> {
+            if (ReadWriteRoutingDataSource.isPinnedToPrimary()) {
+                return page("primary");
+            }
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return page("replica");
+        });
+
+        CompletableFuture<ProductsPageDTO> replicaRead = CompletableFuture.supplyAsync(() -> coalescer.getProductsPage(null, 10));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ProductsPageDTO> primaryRead = CompletableFuture.supplyAsync(() ->
+                ReadWriteRoutingDataSource.onPrimary(() -> coalescer.getProductsPage(null, 10)));
+
+        // Answered while the replica load is still running, so it did not wait for it
+        assertEquals("primary", primaryRead.get(5, TimeUnit.SECONDS).nextCursor());
+        release.countDown();
+        assertEquals("replica", replicaRead.get(5, TimeUnit.SECONDS).nextCursor());
+        verify(productService, times(2)).getProductsPage(null, 10);
+        assertEquals(0.0, meterRegistry.get("reads.coalescing").tag("query", "products-page").tag("outcome", "coalesced").counter().count());
+    }
+
+    @Test
+    void callsPinnedToThePrimaryShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productService.getProductsPage(null, 10)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return page(null);
+        });
+
+        CompletableFuture<ProductsPageDTO> first = CompletableFuture.supplyAsync(() ->
+                ReadWriteRoutingDataSource.onPrimary(() -> coalescer.getProductsPage(null, 10)));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ProductsPageDTO> second = CompletableFuture.supplyAsync(() ->
+                ReadWriteRoutingDataSource.onPrimary(() -> coalescer.getProductsPage(null, 10)));
+        while (meterRegistry.get("reads.coalescing").tag("outcome", "coalesced").counter().count() == 0 && !second.isDone()) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(productService, times(1)).getProductsPage(null, 10);
+    }
+
+    @Test
+    void missingPriceBoundsReachTheServiceAsMissing() throws Exception {
+        when(productService.filterProductsbyPrice(null, 50.0, "ASC")).thenReturn(List.of());
+
+        assertEquals(List.of(), coalescer.filterProductsbyPrice(null, 50.0, "asc"));
+        verify(productService).filterProductsbyPrice(null, 50.0, "ASC");
+    }
+
+    private static ProductsPageDTO page(String nextCursor) {
+        return new ProductsPageDTO(List.of(), nextCursor);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductSearchDocumentDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.repository.ProductsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductSearchIndexTest {
+
+    private final ProductsRepository productsRepository = mock(ProductsRepository.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(productsRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(productsRepository.streamSearchDocuments()).thenReturn(Stream.of(
+                new ProductSearchDocumentDTO(1L, "ABC123", "Football Shoes", "Predator League L FG", 749.0, "Adidas"),
+                new ProductSearchDocumentDTO(2L, "ABC234", "Sneakers", "VL Court 3.0 shoes for the street", 479.0, "Adidas"),
+                new ProductSearchDocumentDTO(3L, "ABCD123", "Water Bottle", "500ml stainless steel water bottle", 199.0, "Puma")));
+        index.rebuild();
+    }
+
+    @Test
+    void searchRanksNameMatchesAboveDescriptionMatches() {
+        assertEquals(List.of(1L, 2L), ids(index.search("shoes", 10)));
+    }
+
+    @Test
+    void searchRequiresEveryWordAndMatchesLastWordAsPrefix() {
+        assertEquals(List.of(1L), ids(index.search("adidas foot", 10)));
+        assertEquals(List.of(), ids(index.search("puma shoes", 10)));
+    }
+
+    @Test
+    void autocompleteSuggestsMostCommonWordsFirst() {
+        assertEquals(List.of("stainless", "steel", "street"), index.autocomplete("st", 10));
+    }
+
+    @Test
+    void changesAreAppliedToTheIndex() {
+        when(productsRepository.findSearchDocuments(Set.of(3L))).thenReturn(List.of(
+                new ProductSearchDocumentDTO(3L, "ABCD123", "Running Shoes", null, 199.0, "Puma")));
+        index.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 3L, "ABCD123"));
+        index.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, "ABC123"));
+
+        assertEquals(List.of(3L, 2L), ids(index.search("shoes", 10)));
+        assertEquals(List.of(), index.autocomplete("bott", 10));
+    }
+
+    @Test
+    void changesOfOneTransactionAreReloadedWithOneQueryAfterTheCommit() {
+        when(productsRepository.findSearchDocuments(Set.of(2L, 3L))).thenReturn(List.of(
+                new ProductSearchDocumentDTO(2L, "ABC234", "Trail Shoes", null, 479.0, "Adidas"),
+                new ProductSearchDocumentDTO(3L, "ABCD123", "Running Shoes", null, 199.0, "Puma")));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 2L, "ABC234"));
+            index.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 3L, "ABCD123"));
+            index.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 2L, "ABC234"));
+            verify(productsRepository, never()).findSearchDocuments(any());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(productsRepository, times(1)).findSearchDocuments(any());
+        assertEquals(List.of(1L, 2L, 3L), ids(index.search("shoes", 10)));
+        assertEquals(List.of(2L), ids(index.search("trail", 10)));
+    }
+
+    @Test
+    void termsSharedByManyProductsKeepTheirOtherProductsWhenSomeAreRemoved() {
+        when(productsRepository.streamSearchDocuments()).thenReturn(LongStream.rangeClosed(1, 1000)
+                .mapToObj(id -> new ProductSearchDocumentDTO(id, "CODE" + id, id % 2 == 0 ? "Even sock" : "Odd sock", null, 10.0, "Nike")));
+        index.rebuild();
+
+        LongStream.rangeClosed(1, 1000).filter(id -> id % 3 == 0)
+                .forEach(id -> index.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, id, "CODE" + id)));
+
+        assertEquals(667, index.search("sock", 1000).size());
+        assertEquals(333, index.search("odd sock", 1000).size());
+        assertEquals(List.of(), index.search("code3 sock", 10));
+        assertEquals(List.of(4L), ids(index.search("code4 sock", 10)));
+    }
+
+    private static List<Long> ids(List<ProductsDTO> products) {
+        return products.stream().map(ProductsDTO::id).toList();
+    }
+}
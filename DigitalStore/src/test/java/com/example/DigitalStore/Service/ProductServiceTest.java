@@ -0,0 +1,224 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductOptionsDTO;
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.DTO.ProductsUpdateDTO;
+import com.example.DigitalStore.model.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ProductService.class, ReferenceDataRegistry.class, CatalogVersion.class})
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Brands brand;
+    private Categories category;
+    private Sizes size;
+    private Colors color;
+
+    @BeforeEach
+    void setUp() {
+        brand = new Brands();
+        brand.setBrandName("Nike");
+        entityManager.persist(brand);
+
+        category = new Categories();
+        category.setCategoryName("Shoes");
+        entityManager.persist(category);
+
+        size = new Sizes();
+        size.setSize("42");
+        entityManager.persist(size);
+
+        color = new Colors();
+        color.setColor("Red");
+        entityManager.persist(color);
+
+        entityManager.flush();
+        referenceData.refresh();
+        entityManager.clear(); // registry entities are detached, as they are outside tests
+    }
+
+    @Test
+    void getProductOptionsUsesSameNumberOfStatementsForAnyNumberOfOptions() {
+        persistProduct("ONE", 1);
+        persistProduct("MANY", 25);
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        List<ProductOptionsGetDTO> one = productService.getProductOptions("ONE");
+        long statementsForOne = statistics.getPrepareStatementCount();
+
+        entityManager.clear();
+        statistics.clear();
+        List<ProductOptionsGetDTO> many = productService.getProductOptions("MANY");
+        long statementsForMany = statistics.getPrepareStatementCount();
+
+        assertEquals(1, one.size());
+        assertEquals(25, many.size());
+        assertEquals("42", many.get(0).getSize());
+        assertEquals("Red", many.get(0).getColor());
+        assertEquals(1, statementsForOne);
+        assertEquals(statementsForOne, statementsForMany);
+    }
+
+    @Test
+    void getProductOptionsReturnsEmptyListForProductWithoutOptions() {
+        persistProduct("EMPTY", 0);
+        entityManager.clear();
+
+        assertTrue(productService.getProductOptions("EMPTY").isEmpty());
+    }
+
+    @Test
+    void getProductOptionsRejectsUnknownProduct() {
+        assertThrows(IllegalArgumentException.class, () -> productService.getProductOptions("MISSING"));
+    }
+
+    @Test
+    void createProductResolvesSizesAndColorsWithoutLoadingThem() {
+        ProductsUpdateDTO newProduct = newProductDTO("NEW", 5);
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        Products created = productService.createProduct(newProduct);
+        entityManager.flush();
+
+        assertEquals(5, created.getProductOptions().size());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void createProductBatchesOptionInserts() {
+        productService.createProduct(newProductDTO("WARMUP", 1));
+        entityManager.flush();
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        productService.createProduct(newProductDTO("FORTY", 40));
+        entityManager.flush();
+
+        // existsByProductCode, sequence calls and one batched insert per table, not one insert per option
+        assertEquals(41, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 5,
+                "Expected batched inserts but got " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void createProductRejectsUnknownSize() {
+        ProductsUpdateDTO newProduct = newProductDTO("BAD", 1);
+        newProduct.getProductOptions().get(0).setSizeId(-1L);
+
+        assertThrows(IllegalArgumentException.class, () -> productService.createProduct(newProduct));
+    }
+
+    @Test
+    void getProductsByCategoryIncludesSubcategories() {
+        Categories child = new Categories();
+        child.setCategoryName("Men");
+        child.setParentId(category.getId());
+        entityManager.persist(child);
+        Products inParent = persistProduct("PARENT", 0);
+        Products inChild = persistProduct("CHILD", 0);
+        inChild.setCategoryId(child);
+        entityManager.flush();
+        referenceData.refresh();
+        entityManager.clear();
+
+        List<Long> parentIds = productService.getProductsByCategory(category.getId()).stream().map(ProductsDTO::id).toList();
+        List<Long> childIds = productService.getProductsByCategory(child.getId()).stream().map(ProductsDTO::id).toList();
+
+        assertEquals(List.of(inParent.getId(), inChild.getId()), parentIds);
+        assertEquals(List.of(inChild.getId()), childIds);
+    }
+
+    @Test
+    void priceFilterLeavesMissingBoundsOutOfTheQuery() throws NegativePriceException {
+        Products negative = persistProduct("NEGATIVE", 0);
+        negative.setPrice(-5.0);
+        Products cheap = persistProduct("CHEAP", 0);
+        cheap.setPrice(10.0);
+        Products expensive = persistProduct("EXPENSIVE", 0);
+        entityManager.flush();
+        entityManager.clear();
+
+        // A missing minimum is not a minimum of 0, the product with a negative price stays in
+        assertEquals(List.of(negative.getId(), cheap.getId()), priceFilterIds(null, 50.0, "asc"));
+        assertEquals(List.of(cheap.getId()), priceFilterIds(0.0, 50.0, "asc"));
+        assertEquals(List.of(expensive.getId(), cheap.getId()), priceFilterIds(10.0, null, "desc"));
+        assertEquals(List.of(negative.getId(), cheap.getId(), expensive.getId()), priceFilterIds(null, null, "asc"));
+    }
+
+    private List<Long> priceFilterIds(Double minPrice, Double maxPrice, String sortDirection) throws NegativePriceException {
+        return productService.filterProductsbyPrice(minPrice, maxPrice, sortDirection).stream().map(ProductsDTO::id).toList();
+    }
+
+    private ProductsUpdateDTO newProductDTO(String productCode, int options) {
+        ProductsUpdateDTO newProduct = new ProductsUpdateDTO();
+        newProduct.setProductCode(productCode);
+        newProduct.setProductName("Product " + productCode);
+        newProduct.setPrice(100.0);
+        newProduct.setBrandId(brand.getId());
+        newProduct.setCategoryId(category.getId());
+        List<ProductOptionsDTO> optionDTOs = new ArrayList<>();
+        for (int i = 0; i < options; i++) {
+            ProductOptionsDTO optionDTO = new ProductOptionsDTO();
+            optionDTO.setSizeId(size.getId());
+            optionDTO.setColorId(color.getId());
+            optionDTO.setStockQuantity(i);
+            optionDTOs.add(optionDTO);
+        }
+        newProduct.setProductOptions(optionDTOs);
+        return newProduct;
+    }
+
+    private Products persistProduct(String productCode, int options) {
+        Products product = new Products();
+        product.setProductCode(productCode);
+        product.setProductName("Product " + productCode);
+        product.setPrice(100.0);
+        product.setBrandId(brand);
+        product.setCategoryId(category);
+        for (int i = 0; i < options; i++) {
+            ProductOptions option = new ProductOptions();
+            option.setProductId(product);
+            option.setSize(size);
+            option.setColor(color);
+            option.setStockQuantity(i);
+            product.getProductOptions().add(option);
+        }
+        entityManager.persist(product);
+        entityManager.flush();
+        return product;
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.ProductOptionsGetDTO;
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.config.ReactiveDataSourceConfig;
+import com.example.DigitalStore.model.Categories;
+import com.example.DigitalStore.repository.ReactiveCatalogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the hand-written SQL of the reactive path against an in-memory database with the schema of database.sql
+class ReactiveProductServiceTest {
+
+    private final ReactiveDataSourceConfig config = new ReactiveDataSourceConfig();
+    private final DatabaseClient databaseClient = config.reactiveDatabaseClient(
+            "r2dbc:h2:mem:///reactive-" + System.nanoTime() + "?options=DB_CLOSE_DELAY=-1;MODE=MariaDB", "sa", "", 2);
+    private final ReactiveProductService service = new ReactiveProductService(new ReactiveCatalogRepository(databaseClient));
+
+    ReactiveProductServiceTest() {
+        Flux.just(
+                "CREATE TABLE Brands (id BIGINT PRIMARY KEY, brand_name VARCHAR(255) NOT NULL)",
+                "CREATE TABLE Categories (id BIGINT PRIMARY KEY, category_name VARCHAR(255) NOT NULL, parent_id BIGINT)",
+                "CREATE TABLE Sizes (id BIGINT PRIMARY KEY, size VARCHAR(255) NOT NULL)",
+                "CREATE TABLE Colors (id BIGINT PRIMARY KEY, color VARCHAR(255) NOT NULL)",
+                "CREATE TABLE Products (id BIGINT PRIMARY KEY, product_code VARCHAR(255) NOT NULL, product_name VARCHAR(255) NOT NULL, " +
+                        "description VARCHAR(255), price DOUBLE NOT NULL, brand_id BIGINT NOT NULL, category_id BIGINT NOT NULL)",
+                "CREATE TABLE Product_Options (id BIGINT PRIMARY KEY, product_id BIGINT NOT NULL, size_id BIGINT, color_id BIGINT, stock_quantity INT)",
+                "INSERT INTO Brands VALUES (1, 'Nike'), (2, 'Adidas')",
+                "INSERT INTO Categories VALUES (1, 'Shoes', NULL), (2, 'Running', 1)",
+                "INSERT INTO Sizes VALUES (1, 'M')",
+                "INSERT INTO Colors VALUES (1, 'Red')",
+                "INSERT INTO Products VALUES (1, 'P1', 'One', NULL, 30.0, 1, 1), (2, 'P2', 'Two', NULL, 10.0, 1, 2), " +
+                        "(3, 'P3', 'Three', NULL, 20.0, 2, 2), (4, 'P4', 'Four', NULL, 40.0, 2, 1)",
+                "INSERT INTO Product_Options VALUES (1, 1, 1, 1, 5), (2, 1, NULL, NULL, 0)")
+                .concatMap(sql -> databaseClient.sql(sql).then())
+                .blockLast();
+    }
+
+    @AfterEach
+    void closePool() {
+        config.closeConnectionPool();
+    }
+
+    @Test
+    void productsAreStreamedInIdOrderAfterTheGivenId() {
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(service.getProducts(null, null)));
+        assertEquals(List.of(2L, 3L), ids(service.getProducts(1L, 2)));
+        // Cancelling early stops reading, the stream is not collected first
+        assertEquals(List.of(1L, 2L), ids(service.getProducts(null, null).take(2)));
+        assertThrows(IllegalArgumentException.class, () -> service.getProducts(null, 0));
+    }
+
+    @Test
+    void priceFilterUsesTheSameRulesAsTheBlockingPath() throws NegativePriceException {
+        assertEquals(List.of(3L, 1L), ids(service.filterProductsByPrice(15.0, 35.0, "asc")));
+        assertEquals(List.of(4L, 1L, 3L, 2L), ids(service.filterProductsByPrice(null, null, "desc")));
+        assertEquals(List.of(2L, 3L), ids(service.filterProductsByPrice(null, 20.0, "asc")));
+        assertEquals(List.of(4L, 1L), ids(service.filterProductsByPrice(30.0, null, "desc")));
+        assertThrows(NegativePriceException.class, () -> service.filterProductsByPrice(-1.0, null, "asc"));
+        assertThrows(IllegalArgumentException.class, () -> service.filterProductsByPrice(20.0, 10.0, "asc"));
+        assertThrows(IllegalArgumentException.class, () -> service.filterProductsByPrice(null, null, "up"));
+    }
+
+    @Test
+    void optionsHaveSizeAndColorNames() {
+        List<ProductOptionsGetDTO> options = service.getProductOptions("P1").block();
+        assertEquals(2, options.size());
+        assertEquals("M", options.get(0).getSize());
+        assertEquals("Red", options.get(0).getColor());
+        assertEquals(5, options.get(0).getStockQuantity());
+        assertEquals("Unknown Size", options.get(1).getSize());
+
+        assertEquals(List.of(), service.getProductOptions("P2").block());
+        assertThrows(IllegalArgumentException.class, () -> service.getProductOptions("missing").block());
+    }
+
+    @Test
+    void referenceDataIsReadFromTheDatabase() {
+        assertEquals(Map.of(1L, "Nike", 2L, "Adidas"), service.getBrandNames().block());
+        assertEquals(Map.of(1L, "M"), service.getSizeNames().block());
+        assertEquals(Map.of(1L, "Red"), service.getColorNames().block());
+        List<Categories> categories = service.getCategories().block();
+        assertEquals("Shoes", categories.get(0).getCategoryName());
+        assertEquals(1L, categories.get(1).getParentId());
+    }
+
+    private static List<Long> ids(Flux<ProductsDTO> products) {
+        return products.map(ProductsDTO::id).collectList().block();
+    }
+}
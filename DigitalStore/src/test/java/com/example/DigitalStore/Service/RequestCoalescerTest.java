@@ -0,0 +1,88 @@
+package com.example.DigitalStore.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer<String, Integer> coalescer = new RequestCoalescer<>("test", meterRegistry);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void concurrentCallsShareOneLoad() throws Exception {
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> coalescer.get("k", this::slowLoad));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> coalescer.get("k", this::slowLoad));
+        awaitCount("coalesced", 1);
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1.0, count("loaded"));
+
+        // Finished loads are not kept
+        assertEquals(2, coalescer.get("k", loads::incrementAndGet));
+    }
+
+    @Test
+    void joinedCallGetsTheExceptionOfTheLoad() throws Exception {
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> coalescer.get("k", () -> {
+            slowLoad();
+            throw new IllegalArgumentException("not found");
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> coalescer.get("k", this::slowLoad));
+        awaitCount("coalesced", 1);
+        release.countDown();
+
+        assertInstanceOf(IllegalArgumentException.class, assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(IllegalArgumentException.class, assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    void callAfterForgetAllStartsItsOwnLoad() throws Exception {
+        CompletableFuture<Integer> stale = CompletableFuture.supplyAsync(() -> coalescer.get("k", this::slowLoad));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        coalescer.forgetAll();
+        assertEquals(2, coalescer.get("k", loads::incrementAndGet));
+        release.countDown();
+
+        assertEquals(1, stale.get(5, TimeUnit.SECONDS));
+        assertEquals(0.0, count("coalesced"));
+    }
+
+    private Integer slowLoad() {
+        int value = loads.incrementAndGet();
+        loading.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("reads.coalescing").tag("query", "test").tag("outcome", outcome).counter().count();
+    }
+
+    private void awaitCount(String outcome, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(outcome) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, count(outcome));
+    }
+}
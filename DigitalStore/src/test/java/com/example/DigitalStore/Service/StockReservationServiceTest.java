@@ -0,0 +1,187 @@
+package com.example.DigitalStore.Service;
+
+import com.example.DigitalStore.DTO.StockReservationDTO;
+import com.example.DigitalStore.model.*;
+import com.example.DigitalStore.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional, every service call commits on its own like concurrent requests do
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(StockReservationService.class)
+class StockReservationServiceTest {
+
+    private static final int INITIAL_STOCK = 50;
+    private static final int BUYERS = 300;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductsRepository productsRepository;
+
+    @Autowired
+    private ProductOptionsRepository productOptionsRepository;
+
+    @Autowired
+    private BrandsRepository brandsRepository;
+
+    @Autowired
+    private CategoriesRepository categoriesRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long optionId;
+
+    @BeforeEach
+    void setUp() {
+        Brands brand = new Brands();
+        brand.setBrandName("Brand " + System.nanoTime());
+        Categories category = new Categories();
+        category.setCategoryName("Shoes");
+
+        Products product = new Products();
+        product.setProductCode("STRESS-" + System.nanoTime());
+        product.setProductName("Limited Sneakers");
+        product.setPrice(999.0);
+        product.setBrandId(brandsRepository.save(brand));
+        product.setCategoryId(categoriesRepository.save(category));
+        ProductOptions option = new ProductOptions();
+        option.setProductId(product);
+        option.setStockQuantity(INITIAL_STOCK);
+        product.getProductOptions().add(option);
+        optionId = productsRepository.save(product).getProductOptions().get(0).getId();
+    }
+
+    @Test
+    void parallelBuyersNeverOversell() throws Exception {
+        AtomicInteger soldOut = new AtomicInteger();
+        List<Future<StockReservationDTO>> results = runBuyers(() -> {
+            try {
+                return stockReservationService.reserve(optionId, 1, null);
+            } catch (InsufficientStockException e) {
+                soldOut.incrementAndGet();
+                return null;
+            }
+        });
+
+        List<StockReservationDTO> reservations = results.stream().map(StockReservationServiceTest::get).filter(Objects::nonNull).toList();
+        assertEquals(INITIAL_STOCK, reservations.size());
+        assertEquals(BUYERS - INITIAL_STOCK, soldOut.get());
+        assertEquals(0, stock());
+
+        // Half the buyers give up, the other half pay, both concurrently and each reservation finished twice
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> finishing = new ArrayList<>();
+        for (int i = 0; i < reservations.size(); i++) {
+            Long id = reservations.get(i).id();
+            boolean release = i % 2 == 0;
+            for (int attempt = 0; attempt < 2; attempt++) {
+                finishing.add(executor.submit(() -> {
+                    try {
+                        if (release) {
+                            stockReservationService.release(id);
+                        } else {
+                            stockReservationService.commit(id);
+                        }
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                }));
+            }
+        }
+        for (Future<?> future : finishing) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(INITIAL_STOCK, rejected.get());
+        assertEquals(INITIAL_STOCK / 2, stock());
+    }
+
+    @Test
+    void expiredReservationsGiveStockBack() throws Exception {
+        StockReservationDTO reservation = stockReservationService.reserve(optionId, 5, 1L);
+        assertEquals(INITIAL_STOCK - 5, stock());
+
+        Thread.sleep(1100);
+        stockReservationService.expireReservations();
+
+        assertEquals(INITIAL_STOCK, stock());
+        assertThrows(IllegalStateException.class, () -> stockReservationService.commit(reservation.id()));
+    }
+
+    @Test
+    void updateOfAnOptionLoadedBeforeAReservationFailsInsteadOfRestoringTheStock() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            ProductOptions option = productOptionsRepository.findById(optionId).orElseThrow();
+            // Another request reserves and commits while this one still holds the option it loaded
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return stockReservationService.reserve(optionId, 5, null);
+                } catch (InsufficientStockException e) {
+                    throw new CompletionException(e);
+                }
+            }).join();
+            option.setStockQuantity(option.getStockQuantity() + 10);
+        }));
+
+        assertEquals(INITIAL_STOCK - 5, stock());
+    }
+
+    @Test
+    void reserveRejectsMoreThanTheStock() {
+        assertThrows(InsufficientStockException.class, () -> stockReservationService.reserve(optionId, INITIAL_STOCK + 1, null));
+        assertEquals(INITIAL_STOCK, stock());
+    }
+
+    private List<Future<StockReservationDTO>> runBuyers(Callable<StockReservationDTO> buyer) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<StockReservationDTO>> buyers = IntStream.range(0, BUYERS)
+                .<Callable<StockReservationDTO>>mapToObj(i -> () -> {
+                    start.await();
+                    return buyer.call();
+                })
+                .toList();
+        List<Future<StockReservationDTO>> futures = buyers.stream().map(executor::submit).toList();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        return futures;
+    }
+
+    private static StockReservationDTO get(Future<StockReservationDTO> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private int stock() {
+        return productOptionsRepository.findStockQuantity(optionId).orElseThrow();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.DigitalStore.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two in-memory databases stand in for primary and replica, each knows its own name
+class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource dataSource = new LazyConnectionDataSourceProxy(
+            new ReadWriteRoutingDataSource(database("primary"), database("replica")));
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final TransactionTemplate readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+    ReadWriteRoutingDataSourceTest() {
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        assertEquals("replica", readOnly.execute(status -> origin()));
+        assertEquals("primary", readWrite.execute(status -> origin()));
+        assertEquals("primary", origin());
+    }
+
+    @Test
+    void pinnedReadGoesToPrimary() {
+        assertEquals("primary", ReadWriteRoutingDataSource.onPrimary(() -> readOnly.execute(status -> origin())));
+        assertEquals("replica", readOnly.execute(status -> origin()));
+    }
+
+    @Test
+    void clientReadsFromPrimaryWithinWindowAfterWrite() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("PUT", "/products/1"), writeResponse, (request, response) -> {});
+        Cookie cookie = writeResponse.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+
+        MockHttpServletRequest afterWrite = new MockHttpServletRequest("GET", "/products");
+        afterWrite.setCookies(cookie);
+        assertEquals("primary", readThrough(filter, afterWrite));
+
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/products");
+        expired.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(System.currentTimeMillis() - 1)));
+        assertEquals("replica", readThrough(filter, expired));
+        assertEquals("replica", readThrough(filter, new MockHttpServletRequest("GET", "/products")));
+    }
+
+    private String readThrough(ReadYourWritesFilter filter, MockHttpServletRequest request) throws Exception {
+        AtomicReference<String> origin = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> origin.set(readOnly.execute(status -> origin())));
+        return origin.get();
+    }
+
+    private String origin() {
+        return jdbcTemplate.queryForObject("SELECT name FROM origin", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource database = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS origin (name VARCHAR(20))");
+        jdbcTemplate.update("DELETE FROM origin");
+        jdbcTemplate.update("INSERT INTO origin VALUES (?)", name);
+        return database;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.DigitalStore.config;
+
+import com.example.DigitalStore.controller.BrandController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SqlMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SqlMetricsInterceptor interceptor = new SqlMetricsInterceptor(meterRegistry, 2);
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/brands");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void recordsStatementsAndJdbcTimePerControllerMethod() throws Exception {
+        HandlerMethod handler = handler();
+        SqlStatementListener listener = new SqlStatementListener();
+
+        interceptor.preHandle(request, response, handler);
+        listener.jdbcExecuteStatementStart();
+        listener.jdbcExecuteStatementEnd();
+        listener.jdbcExecuteBatchStart();
+        listener.jdbcExecuteBatchEnd();
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(2.0, meterRegistry.get("http.server.requests.sql.statements")
+                .tag("controller", "BrandController").tag("method", "getAllBrandsAsMap").summary().totalAmount());
+        assertTrue(meterRegistry.get("http.server.requests.jdbc.time").timer().totalTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(meterRegistry.find("http.server.requests.sql.over.budget").counters().isEmpty());
+    }
+
+    @Test
+    void countsRequestsOverQueryBudget() throws Exception {
+        HandlerMethod handler = handler();
+        SqlStatementListener listener = new SqlStatementListener();
+
+        interceptor.preHandle(request, response, handler);
+        for (int i = 0; i < 3; i++) {
+            listener.jdbcExecuteStatementStart();
+            listener.jdbcExecuteStatementEnd();
+        }
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(1.0, meterRegistry.get("http.server.requests.sql.over.budget").counter().count());
+    }
+
+    @Test
+    void ignoresStatementsOutsideRequests() {
+        SqlStatementListener listener = new SqlStatementListener();
+        listener.jdbcExecuteStatementStart();
+        listener.jdbcExecuteStatementEnd();
+
+        assertNull(SqlStatementListener.currentRequest());
+    }
+
+    @Test
+    void asyncRequestCountsStatementsOfAllItsThreads() throws Exception {
+        HandlerMethod handler = handler();
+        SqlStatementListener listener = new SqlStatementListener();
+
+        interceptor.preHandle(request, response, handler);
+        listener.jdbcExecuteStatementStart();
+        listener.jdbcExecuteStatementEnd();
+        interceptor.afterConcurrentHandlingStarted(request, response, handler);
+        assertNull(SqlStatementListener.currentRequest());
+
+        // The streamed body, on the async executor
+        CompletableFuture.runAsync(() -> {
+            interceptor.preProcess(new ServletWebRequest(request), () -> null);
+            listener.jdbcExecuteStatementStart();
+            listener.jdbcExecuteStatementEnd();
+            interceptor.postProcess(new ServletWebRequest(request), () -> null, null);
+        }).get(5, TimeUnit.SECONDS);
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(1, meterRegistry.get("http.server.requests.sql.statements").summary().count());
+        assertEquals(2.0, meterRegistry.get("http.server.requests.sql.statements").summary().totalAmount());
+        assertNull(SqlStatementListener.currentRequest());
+    }
+
+    private static HandlerMethod handler() throws NoSuchMethodException {
+        return new HandlerMethod(mock(BrandController.class), BrandController.class.getMethod("getAllBrandsAsMap", WebRequest.class,
+                HttpServletRequest.class, HttpServletResponse.class));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.DigitalStore.controller;
+
+import com.example.DigitalStore.Service.CatalogSnapshotService;
+import com.example.DigitalStore.Service.CatalogVersion;
+import com.example.DigitalStore.Service.InMemoryCatalogVersion;
+import com.example.DigitalStore.Service.ReferenceDataRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConditionalGetTest {
+
+    private final ReferenceDataRegistry referenceData = mock(ReferenceDataRegistry.class);
+    private final CatalogVersion catalogVersion = InMemoryCatalogVersion.create();
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new BrandController(referenceData, catalogVersion, mock(CatalogSnapshotService.class))).build();
+
+    @Test
+    void unchangedCatalogAnswersNotModifiedWithoutLoadingData() throws Exception {
+        when(referenceData.getBrandNames()).thenReturn(Map.of(1L, "Nike"));
+        String eTag = mockMvc.perform(get("/brands"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/brands").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        verify(referenceData, times(1)).getBrandNames();
+    }
+
+    @Test
+    void writeChangesTheETag() throws Exception {
+        when(referenceData.getBrandNames()).thenReturn(Map.of(1L, "Nike"));
+        String eTag = mockMvc.perform(get("/brands")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        catalogVersion.bump();
+
+        String newETag = mockMvc.perform(get("/brands").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag);
+    }
+}
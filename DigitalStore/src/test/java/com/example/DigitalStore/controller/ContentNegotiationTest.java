@@ -0,0 +1,155 @@
+package com.example.DigitalStore.controller;
+
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.Service.*;
+import com.example.DigitalStore.config.JacksonFormatsConfig;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = {BrandController.class, ProductController.class})
+@Import({JacksonFormatsConfig.class, SimpleMeterRegistry.class})
+class ContentNegotiationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ReferenceDataRegistry referenceData;
+    @MockitoBean
+    private ProductService productService;
+    @MockitoBean
+    private ProductImportService productImportService;
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+    @MockitoBean
+    private ProductFacetIndex productFacetIndex;
+    @MockitoBean
+    private ProductDetailCache productDetailCache;
+    @MockitoBean
+    private CatalogSnapshotService catalogSnapshotService;
+    @MockitoBean
+    private PriceStatisticsService priceStatisticsService;
+    @MockitoBean
+    private ProductBatchUpdateService productBatchUpdateService;
+    @MockitoBean
+    private CatalogEventPublisher catalogEventPublisher;
+    @MockitoBean
+    private ProductReadCoalescer productReadCoalescer;
+
+    @TestConfiguration
+    static class CatalogVersionConfig {
+        @Bean
+        CatalogVersion catalogVersion() {
+            return InMemoryCatalogVersion.create();
+        }
+    }
+
+    @Test
+    void jsonIsCompactByDefault() throws Exception {
+        when(referenceData.getBrandNames()).thenReturn(Map.of(1L, "Nike"));
+
+        mockMvc.perform(get("/brands").accept("*/*"))
+                .andExpect(content().contentType("application/json"))
+                .andExpect(content().string("{\"1\":\"Nike\"}"));
+    }
+
+    @Test
+    void cborIsSelectedByAcceptHeader() throws Exception {
+        when(referenceData.getBrandNames()).thenReturn(Map.of(1L, "Nike"));
+
+        byte[] body = mockMvc.perform(get("/brands").accept("application/cbor"))
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(Map.of("1", "Nike"), new ObjectMapper(new CBORFactory()).readValue(body, new TypeReference<Map<String, String>>() {}));
+    }
+
+    @Test
+    void streamedListingFollowsAcceptHeader() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<Consumer<ProductsDTO>>getArgument(0).accept(new ProductsDTO(1L, "P1", "Shoe", "Running shoe", 99.0));
+            return null;
+        }).when(productService).streamAllProducts(any());
+
+        MvcResult result = mockMvc.perform(get("/products").accept("application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<ProductsDTO> products = new ObjectMapper(new SmileFactory()).readValue(body, new TypeReference<>() {});
+        assertEquals("P1", products.get(0).productCode());
+    }
+
+    @Test
+    void currentSnapshotIsWrittenAsStoredBytes() throws Exception {
+        byte[] json = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+        byte[] gzip = {31, -117, 8, 0};
+        when(catalogSnapshotService.get(CatalogSnapshotService.PRODUCTS))
+                .thenReturn(Optional.of(new CatalogSnapshotService.Snapshot(0, json, gzip)));
+
+        mockMvc.perform(get("/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(content().bytes(gzip));
+        mockMvc.perform(get("/products"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().contentType("application/json"))
+                .andExpect(content().bytes(json));
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void eachFormatHasItsOwnETag() throws Exception {
+        byte[] json = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+        when(catalogSnapshotService.get(CatalogSnapshotService.PRODUCTS))
+                .thenReturn(Optional.of(new CatalogSnapshotService.Snapshot(0, json, json)));
+
+        MvcResult jsonResult = mockMvc.perform(get("/products"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItems(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn();
+        String jsonETag = jsonResult.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // The JSON copy does not satisfy a request for CBOR
+        MvcResult cborResult = mockMvc.perform(get("/products").accept("application/cbor").header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String cborETag = cborResult.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(jsonETag, cborETag);
+
+        mockMvc.perform(get("/products").accept("application/cbor").header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        mockMvc.perform(get("/products").header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.DigitalStore.controller;
+
+import com.example.DigitalStore.DTO.ProductsDTO;
+import com.example.DigitalStore.Service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ProductControllerTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService,
+            mock(ProductImportService.class), mock(ProductSearchIndex.class), mock(ProductFacetIndex.class), new ObjectMapper(),
+            InMemoryCatalogVersion.create(), mock(ProductDetailCache.class), new MappingJackson2CborHttpMessageConverter(),
+            new MappingJackson2SmileHttpMessageConverter(), mock(CatalogSnapshotService.class), mock(PriceStatisticsService.class),
+            mock(ProductBatchUpdateService.class), mock(CatalogEventPublisher.class),
+            new ProductReadCoalescer(productService, new SimpleMeterRegistry()))).build();
+
+    @Test
+    void fullListingIsStreamedAsJsonArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ProductsDTO> consumer = invocation.getArgument(0);
+            consumer.accept(new ProductsDTO(1L, "P1", "Shoe", "Running shoe", 99.0));
+            consumer.accept(new ProductsDTO(2L, "P2", "Sock", null, 5.0));
+            return null;
+        }).when(productService).streamAllProducts(any());
+
+        MvcResult result = mockMvc.perform(get("/products"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].productCode").value("P1"))
+                .andExpect(jsonPath("$[1].price").value(5.0));
+    }
+
+    @Test
+    void limitReturnsOnePageInsteadOfStreaming() throws Exception {
+        mockMvc.perform(get("/products").param("limit", "10"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk());
+        verify(productService).getProductsPage(null, 10);
+        verify(productService, never()).streamAllProducts(any());
+    }
+}